@@ -0,0 +1,71 @@
+package com.plp.statsplugin;
+
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск значения по ключу без раздела: {@link StatsUtil#getAnyStat(JsonObject, String)}
+ * по дереву против {@link StatStore#getAnyStat(PlayerStats, String)} по колонкам.
+ * Ключи выбраны так, чтобы найтись в первом разделе, в глубоком разделе и не найтись вовсе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"minecraft:jump", "minecraft:diamond_ore", "minecraft:no_such_stat"})
+    public String statKey;
+
+    private JsonObject[] trees;
+    private PlayerStats[] rows;
+    private StatStore store;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<UUID> uuids = StatsFixture.uuids(1000, 42L);
+        Map<UUID, JsonObject> byUuid = StatsFixture.trees(uuids, 42L);
+        store = StatsFixture.store(byUuid);
+        trees = new JsonObject[uuids.size()];
+        rows = new PlayerStats[uuids.size()];
+        for (int i = 0; i < uuids.size(); i++) {
+            trees[i] = byUuid.get(uuids.get(i));
+            rows[i] = store.get(uuids.get(i));
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = next + 1 == rows.length ? 0 : next + 1;
+        return index;
+    }
+
+    @Benchmark
+    public int jsonTree() {
+        return StatsUtil.getAnyStat(trees[nextIndex()], statKey);
+    }
+
+    @Benchmark
+    public int columnar() {
+        return store.getAnyStat(rows[nextIndex()], statKey);
+    }
+}
@@ -0,0 +1,116 @@
+package com.plp.statsplugin;
+
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор одного файла статистики: прежнее дерево Gson против потокового парсера.
+ * Каталог берётся из {@code -Dmoss.bench.stats-dir} (по умолчанию временный) и переиспользуется.
+ * Если в нём уже есть файлы (например, каталог stats/ реального сервера), меряются они —
+ * без генерации, а перед замером проверяется, что оба парсера дают одинаковый результат.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int players;
+
+    private List<UUID> uuids;
+    private StatColumns columns;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String configured = System.getProperty("moss.bench.stats-dir");
+        Path directory = configured != null
+                ? Paths.get(configured)
+                : Files.createTempDirectory("moss-bench-stats");
+        List<UUID> existing = configured != null ? existingUuids(directory) : List.of();
+        if (existing.isEmpty()) {
+            uuids = StatsFixture.uuids(players, 42L);
+            StatsFixture.writeDirectory(directory, uuids, 42L);
+        } else {
+            uuids = existing;
+        }
+        StatsUtil.setStatsFolder(directory.toFile());
+        columns = new StatColumns();
+        if (!existing.isEmpty()) {
+            verifyParsers();
+        }
+    }
+
+    private static List<UUID> existingUuids(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<UUID> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    found.add(UUID.fromString(name.substring(0, name.length() - ".json".length())));
+                } catch (IllegalArgumentException ignored) {
+                    // Посторонний файл в каталоге статистики
+                }
+            }
+        }
+        return found;
+    }
+
+    private void verifyParsers() {
+        int mismatches = 0;
+        for (UUID uuid : uuids) {
+            JsonObject tree = StatsUtil.readStats(uuid);
+            PlayerStats streamed = StatsUtil.readStats(uuid, new PlayerStats.Builder(columns));
+            if (tree != null && streamed != null
+                    && !PlayerStats.fromJson(tree, columns, null).toJson(columns).equals(streamed.toJson(columns))) {
+                mismatches++;
+            }
+        }
+        if (mismatches > 0) {
+            throw new IllegalStateException("Parsers disagree on " + mismatches + " of " + uuids.size() + " files");
+        }
+    }
+
+    private UUID nextUuid() {
+        UUID uuid = uuids.get(next);
+        next = next + 1 == uuids.size() ? 0 : next + 1;
+        return uuid;
+    }
+
+    @Benchmark
+    public JsonObject gsonTree() {
+        return StatsUtil.readStats(nextUuid());
+    }
+
+    @Benchmark
+    public PlayerStats streaming() {
+        return StatsUtil.readStats(nextUuid(), new PlayerStats.Builder(columns));
+    }
+}
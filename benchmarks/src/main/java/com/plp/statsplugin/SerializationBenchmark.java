@@ -0,0 +1,79 @@
+package com.plp.statsplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный список игроков (/moss/players): прежняя сборка JsonArray и Gson.toJson в строку
+ * против потоковой записи {@link PlayerStats#writeJson} в JsonWriter. Вывод уходит в
+ * {@link Writer#nullWriter()}, поэтому измеряется только сериализация.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int players;
+
+    private final Gson gson = new Gson();
+    private StatStore store;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<UUID> uuids = StatsFixture.uuids(players, 42L);
+        store = StatsFixture.store(StatsFixture.trees(uuids, 42L));
+    }
+
+    @Benchmark
+    public int gsonTree() {
+        JsonArray arr = new JsonArray();
+        for (UUID uuid : store.sortedUuidsAfter(null)) {
+            JsonObject o = new JsonObject();
+            o.addProperty("uuid", uuid.toString());
+            o.addProperty("name", "player");
+            o.add("stats", store.get(uuid).toJson(store.columns()));
+            arr.add(o);
+        }
+        return gson.toJson(arr).length();
+    }
+
+    @Benchmark
+    public void streamed() throws IOException {
+        JsonWriter out = new JsonWriter(Writer.nullWriter());
+        out.beginArray();
+        for (UUID uuid : store.sortedUuidsAfter(null)) {
+            out.beginObject();
+            out.name("uuid").value(uuid.toString());
+            out.name("name").value("player");
+            out.name("stats");
+            store.get(uuid).writeJson(out, store.columns());
+            out.endObject();
+        }
+        out.endArray();
+        out.flush();
+    }
+}
@@ -0,0 +1,208 @@
+package com.plp.statsplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Генератор синтетических ванильных файлов статистики для бенчмарков.
+ *
+ * <p>Распределение похоже на живой сервер: у большинства игроков мало наигранного времени
+ * и несколько десятков ключей, у небольшой доли — сотни ключей в mined/used/picked_up.
+ * Генерация детерминирована (seed), поэтому прогоны сравнимы между собой.
+ *
+ * <p>Каталог на диске можно создать отдельно:
+ * <pre>java -cp benchmarks.jar com.plp.statsplugin.StatsFixture &lt;каталог&gt; &lt;игроков&gt;</pre>
+ */
+public final class StatsFixture {
+
+    static final int DATA_VERSION = 3955;
+
+    private static final String[] CUSTOM_KEYS = {
+            "minecraft:play_time", "minecraft:total_world_time", "minecraft:time_since_rest",
+            "minecraft:time_since_death", "minecraft:leave_game", "minecraft:jump", "minecraft:deaths",
+            "minecraft:walk_one_cm", "minecraft:sprint_one_cm", "minecraft:crouch_one_cm",
+            "minecraft:swim_one_cm", "minecraft:fly_one_cm", "minecraft:fall_one_cm",
+            "minecraft:climb_one_cm", "minecraft:boat_one_cm", "minecraft:horse_one_cm",
+            "minecraft:minecart_one_cm", "minecraft:walk_on_water_one_cm", "minecraft:walk_under_water_one_cm",
+            "minecraft:aviate_one_cm", "minecraft:damage_dealt", "minecraft:damage_taken",
+            "minecraft:damage_absorbed", "minecraft:damage_blocked_by_shield", "minecraft:mob_kills",
+            "minecraft:player_kills", "minecraft:animals_bred", "minecraft:fish_caught",
+            "minecraft:sneak_time", "minecraft:drop", "minecraft:open_chest", "minecraft:open_barrel",
+            "minecraft:open_enderchest", "minecraft:open_shulker_box", "minecraft:interact_with_crafting_table",
+            "minecraft:interact_with_furnace", "minecraft:interact_with_anvil", "minecraft:enchant_item",
+            "minecraft:sleep_in_bed", "minecraft:talked_to_villager", "minecraft:traded_with_villager",
+            "minecraft:eat_cake_slice", "minecraft:fill_cauldron", "minecraft:use_cauldron",
+            "minecraft:play_noteblock", "minecraft:tune_noteblock", "minecraft:pot_flower",
+            "minecraft:raid_trigger", "minecraft:raid_win", "minecraft:bell_ring",
+            "minecraft:target_hit", "minecraft:inspect_hopper", "minecraft:inspect_dropper",
+            "minecraft:inspect_dispenser", "minecraft:clean_armor", "minecraft:clean_banner"
+    };
+
+    private static final String[] ITEM_SECTIONS = {
+            "minecraft:mined", "minecraft:crafted", "minecraft:used", "minecraft:broken",
+            "minecraft:picked_up", "minecraft:dropped"
+    };
+
+    private static final String[] ENTITY_SECTIONS = {"minecraft:killed", "minecraft:killed_by"};
+
+    private static final String[] MATERIALS = {
+            "stone", "granite", "diorite", "andesite", "deepslate", "tuff", "dirt", "grass_block",
+            "sand", "gravel", "clay", "netherrack", "end_stone", "obsidian", "cobblestone",
+            "cobbled_deepslate", "oak_log", "spruce_log", "birch_log", "jungle_log", "acacia_log",
+            "dark_oak_log", "mangrove_log", "cherry_log", "oak_planks", "spruce_planks", "coal_ore",
+            "iron_ore", "copper_ore", "gold_ore", "redstone_ore", "lapis_ore", "diamond_ore",
+            "emerald_ore", "deepslate_iron_ore", "deepslate_diamond_ore", "ancient_debris", "glass",
+            "torch", "chest", "furnace", "crafting_table", "white_wool", "wheat", "carrots", "potatoes",
+            "sugar_cane", "kelp", "bamboo", "cactus", "pumpkin", "melon", "oak_leaves", "snow",
+            "ice", "packed_ice", "basalt", "blackstone", "soul_sand", "magma_block", "glowstone",
+            "quartz_block", "bricks", "terracotta", "prismarine", "sea_lantern", "iron_pickaxe",
+            "diamond_pickaxe", "netherite_pickaxe", "iron_sword", "diamond_sword", "bow", "arrow",
+            "shield", "elytra", "firework_rocket", "bread", "cooked_beef", "golden_carrot",
+            "ender_pearl", "rail", "powered_rail", "hopper", "redstone", "repeater", "comparator",
+            "piston", "observer", "scaffolding", "ladder", "bucket", "water_bucket", "lava_bucket"
+    };
+
+    private static final String[] ENTITIES = {
+            "zombie", "skeleton", "creeper", "spider", "enderman", "witch", "slime", "drowned",
+            "husk", "stray", "phantom", "blaze", "ghast", "piglin", "zombified_piglin", "wither_skeleton",
+            "cow", "pig", "sheep", "chicken", "villager", "iron_golem", "player", "ender_dragon"
+    };
+
+    private StatsFixture() {
+    }
+
+    /**
+     * Детерминированный набор UUID для {@code players} игроков.
+     */
+    static List<UUID> uuids(int players, long seed) {
+        Random random = new Random(seed);
+        List<UUID> uuids = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            // Версия 4, как у онлайн-аккаунтов
+            long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+            long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            uuids.add(new UUID(msb, lsb));
+        }
+        return uuids;
+    }
+
+    /**
+     * Дерево одного ванильного файла статистики.
+     */
+    static JsonObject player(Random random) {
+        // ~80% «лёгких» игроков, ~20% «ветеранов» с широким набором ключей
+        boolean veteran = random.nextInt(5) == 0;
+        double activity = veteran ? 20 + random.nextDouble() * 200 : random.nextDouble() * 5;
+
+        JsonObject stats = new JsonObject();
+
+        JsonObject custom = new JsonObject();
+        int customKeys = veteran ? CUSTOM_KEYS.length : 8 + random.nextInt(20);
+        for (int i = 0; i < customKeys; i++) {
+            custom.addProperty(CUSTOM_KEYS[i], scaled(random, activity, i < 12 ? 100_000 : 200));
+        }
+        stats.add("minecraft:custom", custom);
+
+        for (String section : ITEM_SECTIONS) {
+            int keys = veteran ? 30 + random.nextInt(MATERIALS.length - 30) : random.nextInt(15);
+            if (keys == 0) {
+                continue;
+            }
+            JsonObject items = new JsonObject();
+            int offset = random.nextInt(MATERIALS.length);
+            for (int i = 0; i < keys; i++) {
+                items.addProperty("minecraft:" + MATERIALS[(offset + i) % MATERIALS.length], scaled(random, activity, 500));
+            }
+            stats.add(section, items);
+        }
+
+        for (String section : ENTITY_SECTIONS) {
+            int keys = veteran ? 5 + random.nextInt(ENTITIES.length - 5) : random.nextInt(5);
+            if (keys == 0) {
+                continue;
+            }
+            JsonObject entities = new JsonObject();
+            for (int i = 0; i < keys; i++) {
+                entities.addProperty("minecraft:" + ENTITIES[i], scaled(random, activity, 20));
+            }
+            stats.add(section, entities);
+        }
+
+        JsonObject root = new JsonObject();
+        root.add("stats", stats);
+        root.addProperty("DataVersion", DATA_VERSION);
+        return root;
+    }
+
+    /**
+     * Деревья статистики для всех игроков (как прежний кэш Map&lt;UUID, JsonObject&gt;).
+     */
+    static Map<UUID, JsonObject> trees(List<UUID> uuids, long seed) {
+        Random random = new Random(seed);
+        Map<UUID, JsonObject> trees = new HashMap<>(uuids.size() * 2);
+        for (UUID uuid : uuids) {
+            trees.put(uuid, player(random));
+        }
+        return trees;
+    }
+
+    /**
+     * Колоночное хранилище с теми же данными.
+     */
+    static StatStore store(Map<UUID, JsonObject> trees) {
+        StatStore store = new StatStore(0); // без бюджета: все строки горячие
+        trees.forEach((uuid, root) -> store.put(uuid, PlayerStats.fromJson(root, store.columns(), null)));
+        return store;
+    }
+
+    /**
+     * Пишет каталог stats с файлами &lt;uuid&gt;.json. Уже существующие файлы не перезаписываются,
+     * так что каталог можно переиспользовать между прогонами.
+     */
+    static Path writeDirectory(Path directory, List<UUID> uuids, long seed) throws IOException {
+        Files.createDirectories(directory);
+        Gson gson = new Gson();
+        Random random = new Random(seed);
+        for (UUID uuid : uuids) {
+            JsonObject root = player(random);
+            Path file = directory.resolve(uuid + ".json");
+            if (!Files.exists(file)) {
+                Files.writeString(file, gson.toJson(root), StandardCharsets.UTF_8);
+            }
+        }
+        return directory;
+    }
+
+    private static int scaled(Random random, double activity, int base) {
+        // Лог-нормальный разброс вокруг activity × base
+        double value = activity * base * Math.exp(random.nextGaussian());
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, value));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: StatsFixture <directory> <players> [seed]");
+            System.exit(1);
+        }
+        Path directory = Paths.get(args[0]);
+        int players = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        long start = System.currentTimeMillis();
+        writeDirectory(directory, uuids(players, seed), seed);
+        System.out.println("Generated " + players + " stats files in " + directory.toAbsolutePath()
+                + " (" + (System.currentTimeMillis() - start) + " ms)");
+    }
+}
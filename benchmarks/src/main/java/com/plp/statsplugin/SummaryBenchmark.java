@@ -0,0 +1,112 @@
+package com.plp.statsplugin;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сводка сервера (/moss/summary): прежний обход всех деревьев на запрос против
+ * инкрементальных сумм {@link ServerAggregates} (чтение и применение изменения игрока).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SummaryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int players;
+
+    private Map<UUID, JsonObject> trees;
+    private StatStore store;
+    private ServerAggregates aggregates;
+    private List<UUID> uuids;
+    private PlayerStats[] alternate;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        uuids = StatsFixture.uuids(players, 42L);
+        trees = StatsFixture.trees(uuids, 42L);
+        store = StatsFixture.store(trees);
+        aggregates = new ServerAggregates(store.columns(), ServerAggregates.defaults());
+        store.forEach((uuid, row) -> aggregates.onStatsChanged(uuid, null, row));
+
+        // Вторая версия статистики для части игроков: изменение = переход между версиями
+        List<UUID> others = StatsFixture.uuids(Math.min(players, 1000), 7L);
+        Map<UUID, JsonObject> otherTrees = StatsFixture.trees(others, 7L);
+        alternate = new PlayerStats[others.size()];
+        for (int i = 0; i < others.size(); i++) {
+            alternate[i] = PlayerStats.fromJson(otherTrees.get(others.get(i)), store.columns(), null);
+        }
+    }
+
+    @Benchmark
+    public JsonObject fullScan() {
+        long jumps = 0;
+        long deaths = 0;
+        long playtime = 0;
+        long mined = 0;
+        long crafted = 0;
+        for (JsonObject root : trees.values()) {
+            jumps += StatsUtil.getCustomStat(root, "minecraft:jump");
+            deaths += StatsUtil.getCustomStat(root, "minecraft:deaths");
+            playtime += StatsUtil.getCustomStat(root, "minecraft:play_time");
+            mined += sumSection(root, "minecraft:mined");
+            crafted += sumSection(root, "minecraft:crafted");
+        }
+        JsonObject out = new JsonObject();
+        out.addProperty("total_jumps", jumps);
+        out.addProperty("total_deaths", deaths);
+        out.addProperty("total_playtime", playtime);
+        out.addProperty("blocks_mined", mined);
+        out.addProperty("items_crafted", crafted);
+        return out;
+    }
+
+    @Benchmark
+    public JsonObject incrementalRead() {
+        return aggregates.toJson();
+    }
+
+    @Benchmark
+    public void incrementalUpdate() {
+        int index = next;
+        next = next + 1 == alternate.length ? 0 : next + 1;
+        UUID uuid = uuids.get(index);
+        PlayerStats current = store.get(uuid);
+        // Туда и обратно, чтобы суммы не уплывали между итерациями
+        aggregates.onStatsChanged(uuid, current, alternate[index]);
+        aggregates.onStatsChanged(uuid, alternate[index], current);
+    }
+
+    private static long sumSection(JsonObject root, String section) {
+        JsonObject stats = root.getAsJsonObject("stats");
+        if (stats == null || !stats.has(section)) {
+            return 0;
+        }
+        long sum = 0;
+        for (Map.Entry<String, JsonElement> e : stats.getAsJsonObject(section).entrySet()) {
+            sum += e.getValue().getAsLong();
+        }
+        return sum;
+    }
+}
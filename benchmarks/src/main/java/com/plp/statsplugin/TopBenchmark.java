@@ -0,0 +1,88 @@
+package com.plp.statsplugin;
+
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Топ по ключу, как в /moss/top/&lt;stat_key&gt;: прежняя сортировка всего кэша на каждый запрос
+ * против инкрементального {@link RankIndex} (чтение, обновление одного игрока, построение).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TopBenchmark {
+
+    private static final String STAT_KEY = "minecraft:jump";
+    private static final int LIMIT = 20;
+
+    @Param({"1000", "10000", "100000"})
+    public int players;
+
+    private Map<UUID, JsonObject> trees;
+    private StatStore store;
+    private Leaderboards leaderboards;
+    private List<UUID> uuids;
+    private int next;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        uuids = StatsFixture.uuids(players, 42L);
+        trees = StatsFixture.trees(uuids, 42L);
+        store = StatsFixture.store(trees);
+        leaderboards = new Leaderboards(store, Long.MAX_VALUE, 64);
+        leaderboards.top(STAT_KEY, LIMIT);
+    }
+
+    @Benchmark
+    public List<Map.Entry<UUID, JsonObject>> sortAll() {
+        List<Map.Entry<UUID, JsonObject>> entries = new ArrayList<>(trees.entrySet());
+        entries.sort((a, b) -> Integer.compare(
+                StatsUtil.getAnyStat(b.getValue(), STAT_KEY),
+                StatsUtil.getAnyStat(a.getValue(), STAT_KEY)));
+        return entries.subList(0, Math.min(LIMIT, entries.size()));
+    }
+
+    @Benchmark
+    public List<RankIndex.Entry> indexTop() {
+        return leaderboards.top(STAT_KEY, LIMIT);
+    }
+
+    @Benchmark
+    public void indexUpdate() {
+        UUID uuid = uuids.get(next);
+        next = next + 1 == uuids.size() ? 0 : next + 1;
+        PlayerStats row = store.get(uuid);
+        // Значение меняется на каждом вызове, поэтому узел действительно перемещается
+        int value = store.getAnyStat(row, STAT_KEY) + (round++ & 1023);
+        PlayerStats updated = new PlayerStats.Builder(store.columns())
+                .put("minecraft:custom", STAT_KEY, value)
+                .build();
+        leaderboards.onStatsChanged(uuid, row, updated);
+    }
+
+    @Benchmark
+    public List<RankIndex.Entry> indexBuild() {
+        return new Leaderboards(store, Long.MAX_VALUE, 1).top(STAT_KEY, LIMIT);
+    }
+}
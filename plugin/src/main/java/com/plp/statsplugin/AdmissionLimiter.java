@@ -0,0 +1,60 @@
+package com.plp.statsplugin;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ограничитель одновременных запросов с ограниченной очередью ожидания.
+ * Если свободных слотов нет и очередь заполнена (или ожидание истекло), запрос
+ * отклоняется сразу — вызывающий отвечает 429 вместо накопления бесконечного хвоста.
+ */
+final class AdmissionLimiter {
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+
+    AdmissionLimiter(int maxConcurrent, int maxQueued, long queueTimeoutMillis) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(this.maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.queueTimeoutMillis = Math.max(0, queueTimeoutMillis);
+    }
+
+    /**
+     * Пытается занять слот. После успешного вызова обязателен {@link #release()}.
+     * @return false, если запрос нужно отклонить
+     */
+    boolean tryEnter() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            return false;
+        }
+        try {
+            return permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    int inFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    int waiting() {
+        return waiting.get();
+    }
+}
@@ -0,0 +1,226 @@
+package com.plp.statsplugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Составные рейтинги для /moss/top/score/&lt;name&gt; из config.yml (scores).
+ *
+ * <p>Счёт — взвешенная сумма селекторов из {@code terms}; если задан необязательный
+ * {@code divide-by}, она делится на взвешенную сумму его селекторов. Первые {@code maxResults} игроков считаются параллельно по всему кэшу
+ * (fork-join, частичные топы по кускам и их слияние) и хранятся до тех пор, пока не изменится
+ * хотя бы один вход рейтинга: изменения статистики, не задевающие его селекторы, кэш не сбрасывают.
+ */
+final class CompositeScores implements StatsChangeListener {
+
+    private static final int LEAF_SIZE = 2048;
+
+    /**
+     * Слагаемое счёта: вес × значение селектора.
+     */
+    record Term(StatSelector selector, double weight) {
+    }
+
+    /**
+     * Определение рейтинга: {@code numerator} — {@code terms} из конфига, {@code denominator} —
+     * {@code divide-by} (пуст, если делитель не задан).
+     */
+    record Definition(String name, List<Term> numerator, List<Term> denominator) {
+
+        boolean isRatio() {
+            return !denominator.isEmpty();
+        }
+
+        double score(PlayerStats row, StatColumns columns) {
+            double value = weighted(numerator, row, columns);
+            if (!isRatio()) {
+                return value;
+            }
+            // Нулевой знаменатель считается как 1: K/D игрока без смертей равен числу убийств
+            double divisor = weighted(denominator, row, columns);
+            return value / (divisor == 0 ? 1 : divisor);
+        }
+
+        private static double weighted(List<Term> terms, PlayerStats row, StatColumns columns) {
+            double sum = 0;
+            for (Term term : terms) {
+                sum += term.weight() * term.selector().value(row, columns);
+            }
+            return sum;
+        }
+    }
+
+    record Entry(UUID uuid, double score) {
+    }
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int cmp = Double.compare(b.score(), a.score());
+        return cmp != 0 ? cmp : StatStore.compareAsString(a.uuid(), b.uuid());
+    };
+
+    // Результат расчёта: действителен, пока счётчик изменений входов равен inputsVersion
+    private record Ranking(long inputsVersion, List<Entry> top) {
+    }
+
+    private final class Score {
+        final Definition definition;
+        final AtomicLong inputsVersion = new AtomicLong();
+        volatile Ranking ranking;
+
+        Score(Definition definition) {
+            this.definition = definition;
+        }
+    }
+
+    private final StatStore store;
+    private final ForkJoinPool pool;
+    private final int maxResults;
+    private final Map<String, Score> scores = new LinkedHashMap<>();
+
+    CompositeScores(StatStore store, List<Definition> definitions, int parallelism, int maxResults) {
+        this.store = store;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.maxResults = Math.max(1, maxResults);
+        for (Definition definition : definitions) {
+            scores.put(definition.name(), new Score(definition));
+        }
+    }
+
+    Set<String> names() {
+        return Collections.unmodifiableSet(scores.keySet());
+    }
+
+    boolean isEmpty() {
+        return scores.isEmpty();
+    }
+
+    /**
+     * Первые {@code limit} игроков по счёту или null, если рейтинга с таким именем нет.
+     */
+    List<Entry> top(String name, int limit) {
+        Score score = scores.get(name);
+        if (score == null) {
+            return null;
+        }
+        List<Entry> top = ranking(score).top();
+        return top.subList(0, Math.min(Math.max(0, limit), top.size()));
+    }
+
+    @Override
+    public void onStatsChanged(UUID uuid, PlayerStats previous, PlayerStats current) {
+        StatColumns columns = store.columns();
+        for (Score score : scores.values()) {
+            if (previous == null || current == null
+                    || score.definition.score(previous, columns) != score.definition.score(current, columns)) {
+                score.inputsVersion.incrementAndGet();
+            }
+        }
+    }
+
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private Ranking ranking(Score score) {
+        Ranking ranking = score.ranking;
+        long version = score.inputsVersion.get();
+        if (ranking != null && ranking.inputsVersion() == version) {
+            return ranking;
+        }
+        // Один пересчёт на рейтинг: параллельные запросы ждут его результата
+        synchronized (score) {
+            ranking = score.ranking;
+            version = score.inputsVersion.get();
+            if (ranking != null && ranking.inputsVersion() == version) {
+                return ranking;
+            }
+            ranking = new Ranking(version, compute(score.definition));
+            score.ranking = ranking;
+            return ranking;
+        }
+    }
+
+    private List<Entry> compute(Definition definition) {
+        List<UUID> uuids = new ArrayList<>(store.size());
+        // Холодные строки распаковываются по одной в листовых задачах, а не все сразу
+        List<Object> rows = new ArrayList<>(store.size());
+        store.forEachStored((uuid, row) -> {
+            uuids.add(uuid);
+            rows.add(row);
+        });
+        return pool.invoke(new TopTask(definition, store.columns(), uuids, rows, 0, rows.size()));
+    }
+
+    // Задача живёт только внутри пула и никогда не сериализуется
+    @SuppressWarnings("serial")
+    private final class TopTask extends RecursiveTask<List<Entry>> {
+        private final Definition definition;
+        private final StatColumns columns;
+        private final List<UUID> uuids;
+        private final List<Object> rows;
+        private final int from;
+        private final int to;
+
+        TopTask(Definition definition, StatColumns columns, List<UUID> uuids, List<Object> rows, int from, int to) {
+            this.definition = definition;
+            this.columns = columns;
+            this.uuids = uuids;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Entry> compute() {
+            if (to - from <= LEAF_SIZE) {
+                return leaf();
+            }
+            int mid = (from + to) >>> 1;
+            TopTask left = new TopTask(definition, columns, uuids, rows, from, mid);
+            left.fork();
+            List<Entry> right = new TopTask(definition, columns, uuids, rows, mid, to).compute();
+            return merge(left.join(), right);
+        }
+
+        // Частичный топ куска: куча из maxResults худших сверху
+        private List<Entry> leaf() {
+            PriorityQueue<Entry> heap = new PriorityQueue<>(maxResults + 1, ORDER.reversed());
+            for (int i = from; i < to; i++) {
+                Entry entry = new Entry(uuids.get(i), definition.score(StatStore.row(rows.get(i)), columns));
+                if (heap.size() < maxResults) {
+                    heap.add(entry);
+                } else if (ORDER.compare(entry, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(entry);
+                }
+            }
+            List<Entry> result = new ArrayList<>(heap);
+            result.sort(ORDER);
+            return result;
+        }
+
+        private List<Entry> merge(List<Entry> a, List<Entry> b) {
+            List<Entry> result = new ArrayList<>(Math.min(maxResults, a.size() + b.size()));
+            int i = 0;
+            int j = 0;
+            while (result.size() < maxResults && (i < a.size() || j < b.size())) {
+                if (j >= b.size() || (i < a.size() && ORDER.compare(a.get(i), b.get(j)) <= 0)) {
+                    result.add(a.get(i++));
+                } else {
+                    result.add(b.get(j++));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.plp.statsplugin;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Распределение значений одного ключа: логарифмические корзины с относительной точностью
+ * {@code alpha} (как в DDSketch). Корзина k хранит значения из (γ^(k-1), γ^k], γ = (1+α)/(1−α),
+ * поэтому квантиль возвращается с ошибкой не больше α от истинного значения.
+ *
+ * <p>В отличие от t-digest и KLL, корзины поддерживают удаление: при обновлении игрока старое
+ * значение вычитается, новое добавляется, и скетч остаётся точным без перестроения.
+ * Скетчи с одинаковой точностью сливаются сложением корзин. Запросы — O(число корзин),
+ * которое ограничено диапазоном int (около тысячи корзин при α = 1%) и не зависит от числа игроков.
+ */
+final class DistributionSketch {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final double alpha;
+    private final double gamma;
+    private final double logGamma;
+    // Корзины положительных и отрицательных (по модулю) значений; отрицательные создаются по требованию
+    private final int[] positive;
+    private int[] negative;
+    private long zeros;
+    private long count;
+    private long sum;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    /**
+     * Интервал гистограммы [from, to] и число значений в нём.
+     */
+    record Bin(double from, double to, long count) {
+    }
+
+    DistributionSketch(double alpha) {
+        this.alpha = alpha;
+        this.gamma = (1 + alpha) / (1 - alpha);
+        this.logGamma = Math.log(gamma);
+        // Корзины покрывают |v| до 2^31 — весь диапазон значений статистики
+        this.positive = new int[(int) Math.ceil(Math.log(1L << 31) / logGamma) + 1];
+    }
+
+    double relativeAccuracy() {
+        return alpha;
+    }
+
+    void add(long value) {
+        lock.writeLock().lock();
+        try {
+            adjust(value, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long value) {
+        lock.writeLock().lock();
+        try {
+            adjust(value, -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Заменяет значение одного игрока; одинаковые значения не трогают корзины.
+     */
+    void replace(long previous, long current) {
+        if (previous == current) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            adjust(previous, -1);
+            adjust(current, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет корзины другого скетча с той же точностью.
+     */
+    void merge(DistributionSketch other) {
+        if (other.alpha != alpha) {
+            throw new IllegalArgumentException("Скетчи с разной точностью не сливаются");
+        }
+        other.lock.readLock().lock();
+        lock.writeLock().lock();
+        try {
+            for (int k = 0; k < other.positive.length; k++) {
+                positive[k] += other.positive[k];
+            }
+            if (other.negative != null) {
+                int[] target = negative();
+                for (int k = 0; k < other.negative.length; k++) {
+                    target[k] += other.negative[k];
+                }
+            }
+            zeros += other.zeros;
+            count += other.count;
+            sum += other.sum;
+        } finally {
+            lock.writeLock().unlock();
+            other.lock.readLock().unlock();
+        }
+    }
+
+    long count() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long sum() {
+        lock.readLock().lock();
+        try {
+            return sum;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Приближённые квантили для долей {@code qs} (0..1, по возрастанию) за один проход
+     * по корзинам; NaN, если скетч пуст.
+     */
+    double[] quantiles(double... qs) {
+        touch();
+        lock.readLock().lock();
+        try {
+            double[] out = new double[qs.length];
+            if (count == 0) {
+                Arrays.fill(out, Double.NaN);
+                return out;
+            }
+            long[] ranks = new long[qs.length];
+            for (int i = 0; i < qs.length; i++) {
+                ranks[i] = (long) Math.floor(Math.min(1, Math.max(0, qs[i])) * (count - 1));
+            }
+
+            long seen = 0;
+            int next = 0;
+            // По возрастанию: отрицательные от больших по модулю, ноль, положительные
+            if (negative != null) {
+                for (int k = negative.length - 1; k >= 0 && next < qs.length; k--) {
+                    seen += negative[k];
+                    next = fill(out, ranks, next, seen, -1, k);
+                }
+            }
+            seen += zeros;
+            next = fill(out, ranks, next, seen, 0, 0);
+            for (int k = 0; k < positive.length && next < qs.length; k++) {
+                seen += positive[k];
+                next = fill(out, ranks, next, seen, 1, k);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Гистограмма из {@code bins} интервалов между наименьшей и наибольшей корзиной.
+     * При {@code logScale} границы равномерны по log(1 + |v|) — для длинных хвостов
+     * (время игры, добытые блоки), иначе равномерны по значению.
+     */
+    Bin[] histogram(int bins, boolean logScale) {
+        touch();
+        lock.readLock().lock();
+        try {
+            if (count == 0 || bins <= 0) {
+                return new Bin[0];
+            }
+            double min = minValue();
+            double max = maxValue();
+            if (!logScale) {
+                // Целые значения: интервалов не больше, чем различных целых в диапазоне
+                bins = (int) Math.min(bins, Math.max(1, Math.round(max) - Math.round(min) + 1));
+            }
+            double lo = scale(min, logScale);
+            double width = (scale(max, logScale) - lo) / bins;
+
+            long[] counts = new long[bins];
+            if (negative != null) {
+                for (int k = 0; k < negative.length; k++) {
+                    if (negative[k] != 0) {
+                        addToBin(counts, negative[k], -value(k), lo, width, logScale);
+                    }
+                }
+            }
+            addToBin(counts, zeros, 0, lo, width, logScale);
+            for (int k = 0; k < positive.length; k++) {
+                if (positive[k] != 0) {
+                    addToBin(counts, positive[k], value(k), lo, width, logScale);
+                }
+            }
+
+            Bin[] out = new Bin[bins];
+            for (int i = 0; i < bins; i++) {
+                double from = i == 0 ? min : unscale(lo + i * width, logScale);
+                double to = i == bins - 1 ? max : unscale(lo + (i + 1) * width, logScale);
+                out[i] = new Bin(from, to, counts[i]);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Захватывает скетч на запись до {@link #finishBuild()}: читатели ждут,
+     * пока он не будет заполнен.
+     */
+    void beginBuild() {
+        lock.writeLock().lock();
+    }
+
+    void finishBuild() {
+        lock.writeLock().unlock();
+    }
+
+    // ============================
+    // Корзины
+    // ============================
+
+    private void adjust(long value, int delta) {
+        if (value > 0) {
+            positive[bucket(value)] += delta;
+        } else if (value < 0) {
+            negative()[bucket(-value)] += delta;
+        } else {
+            zeros += delta;
+        }
+        count += delta;
+        sum += delta * value;
+    }
+
+    private int[] negative() {
+        if (negative == null) {
+            negative = new int[positive.length];
+        }
+        return negative;
+    }
+
+    private int bucket(long magnitude) {
+        return Math.min((int) Math.ceil(Math.log(magnitude) / logGamma), positive.length - 1);
+    }
+
+    // Середина корзины k по относительной ошибке: 2γ^k / (γ + 1)
+    private double value(int k) {
+        return 2 * Math.pow(gamma, k) / (gamma + 1);
+    }
+
+    private double minValue() {
+        if (negative != null) {
+            for (int k = negative.length - 1; k >= 0; k--) {
+                if (negative[k] != 0) {
+                    return -value(k);
+                }
+            }
+        }
+        if (zeros != 0) {
+            return 0;
+        }
+        for (int k = 0; k < positive.length; k++) {
+            if (positive[k] != 0) {
+                return value(k);
+            }
+        }
+        return 0;
+    }
+
+    private double maxValue() {
+        for (int k = positive.length - 1; k >= 0; k--) {
+            if (positive[k] != 0) {
+                return value(k);
+            }
+        }
+        if (zeros != 0 || negative == null) {
+            return 0;
+        }
+        for (int k = 0; k < negative.length; k++) {
+            if (negative[k] != 0) {
+                return -value(k);
+            }
+        }
+        return 0;
+    }
+
+    // Значение корзины считается, только если она закрывает очередной ранг
+    private int fill(double[] out, long[] ranks, int next, long seen, int sign, int k) {
+        while (next < ranks.length && ranks[next] < seen) {
+            out[next++] = sign * value(k);
+        }
+        return next;
+    }
+
+    private static void addToBin(long[] counts, long n, double value, double lo, double width, boolean logScale) {
+        if (n == 0) {
+            return;
+        }
+        int bin = width <= 0 ? 0 : (int) ((scale(value, logScale) - lo) / width);
+        counts[Math.max(0, Math.min(counts.length - 1, bin))] += n;
+    }
+
+    private static double scale(double value, boolean logScale) {
+        return logScale ? Math.signum(value) * Math.log1p(Math.abs(value)) : value;
+    }
+
+    private static double unscale(double value, boolean logScale) {
+        return logScale ? Math.signum(value) * Math.expm1(Math.abs(value)) : value;
+    }
+}
@@ -0,0 +1,159 @@
+package com.plp.statsplugin;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Скетчи распределений для /moss/distribution/&lt;stat_key&gt;. Скетч ключа строится при первом
+ * запросе, затем обновляется заменой значения игрока при каждом изменении его статистики
+ * и удаляется после простоя — так же, как индексы {@link Leaderboards}.
+ */
+final class Distributions implements StatsChangeListener {
+
+    private final StatStore store;
+    private final double relativeAccuracy;
+    private final long idleMillis;
+    private final int maxSketches;
+    // По id колонки: см. Leaderboards — ключ без раздела может перейти в другой раздел
+    private final Map<Integer, Tracked> sketches = new ConcurrentHashMap<>();
+
+    /**
+     * Скетч и значения игроков, учтённые в нём при построении. Замена значения не идемпотентна,
+     * поэтому изменение, которое обход уже увидел, применять повторно нельзя: до ближайшего
+     * обслуживания после построения изменения сверяются со значением, лежащим в скетче,
+     * затем карта отпускается.
+     */
+    private static final class Tracked {
+        final DistributionSketch sketch;
+        volatile Map<UUID, Integer> built = new ConcurrentHashMap<>();
+        // Обход завершён; пишется и читается под блокировкой скетча
+        boolean buildDone;
+
+        Tracked(DistributionSketch sketch) {
+            this.sketch = sketch;
+        }
+    }
+
+    Distributions(StatStore store, double relativeAccuracy, long idleMillis, int maxSketches) {
+        this.store = store;
+        this.relativeAccuracy = relativeAccuracy;
+        this.idleMillis = idleMillis;
+        this.maxSketches = Math.max(1, maxSketches);
+    }
+
+    /**
+     * Скетч ключа статистики; при первом обращении заполняется обходом кэша.
+     * null, если такого ключа нет ни у одного игрока.
+     */
+    DistributionSketch sketch(String statKey) {
+        int[] resolved = store.columns().resolve(statKey);
+        if (resolved.length == 0) {
+            return null;
+        }
+        int column = resolved[0];
+        Tracked tracked = sketches.get(column);
+        if (tracked != null) {
+            tracked.sketch.touch();
+            return tracked.sketch;
+        }
+        // Лимит соблюдается при создании, а не только при обслуживании раз в минуту
+        evictOldest(maxSketches - 1);
+
+        Tracked created = new Tracked(new DistributionSketch(relativeAccuracy));
+        created.sketch.beginBuild();
+        try {
+            tracked = sketches.putIfAbsent(column, created);
+            if (tracked != null) {
+                return tracked.sketch;
+            }
+            // Изменения, пришедшие во время обхода, ждут блокировку и применятся после него
+            Map<UUID, Integer> built = created.built;
+            store.forEachValue(column, (uuid, value) -> {
+                built.put(uuid, value);
+                created.sketch.add(value);
+            });
+            created.buildDone = true;
+        } finally {
+            created.sketch.finishBuild();
+        }
+        return created.sketch;
+    }
+
+    int size() {
+        return sketches.size();
+    }
+
+    @Override
+    public void onStatsChanged(UUID uuid, PlayerStats previous, PlayerStats current) {
+        for (Map.Entry<Integer, Tracked> entry : sketches.entrySet()) {
+            DistributionSketch sketch = entry.getValue().sketch;
+            int column = entry.getKey();
+            Map<UUID, Integer> built = entry.getValue().built;
+            if (built != null) {
+                // Пока карта построения хранится, в скетче лежит именно значение из built.
+                // Блокировка скетча берётся до карты: так изменение дожидается конца обхода
+                sketch.beginBuild();
+                try {
+                    built.compute(uuid, (id, held) -> {
+                        Integer value = current == null ? null : current.get(column);
+                        if (held != null) {
+                            sketch.remove(held);
+                        }
+                        if (value != null) {
+                            sketch.add(value);
+                        }
+                        return value;
+                    });
+                } finally {
+                    sketch.finishBuild();
+                }
+                continue;
+            }
+            if (previous == null) {
+                sketch.add(current.get(column));
+            } else if (current == null) {
+                sketch.remove(previous.get(column));
+            } else {
+                sketch.replace(previous.get(column), current.get(column));
+            }
+        }
+    }
+
+    /**
+     * Удаляет скетчи, к которым не обращались дольше idle-времени,
+     * и самые старые сверх лимита.
+     */
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        sketches.entrySet().removeIf(e -> now - e.getValue().sketch.lastAccess() > idleMillis);
+        for (Tracked tracked : sketches.values()) {
+            // Карта нужна, пока идёт обход: изменение, увидевшее null, пошло бы по пути replace
+            // и учло бы игрока второй раз
+            tracked.sketch.beginBuild();
+            try {
+                if (tracked.buildDone) {
+                    tracked.built = null;
+                }
+            } finally {
+                tracked.sketch.finishBuild();
+            }
+        }
+        evictOldest(maxSketches);
+    }
+
+    // Оставляет не больше limit скетчей, удаляя те, к которым дольше всего не обращались
+    private void evictOldest(int limit) {
+        int excess = sketches.size() - limit;
+        if (excess > 0) {
+            List<Map.Entry<Integer, Tracked>> byAge = new ArrayList<>(sketches.entrySet());
+            byAge.sort(Comparator.comparingLong(e -> e.getValue().sketch.lastAccess()));
+            for (int i = 0; i < excess; i++) {
+                sketches.remove(byAge.get(i).getKey(), byAge.get(i).getValue());
+            }
+        }
+    }
+}
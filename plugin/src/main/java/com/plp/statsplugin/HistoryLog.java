@@ -0,0 +1,683 @@
+package com.plp.statsplugin;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Журнал истории статистики: только изменившиеся значения (uuid, stat, value, timestamp)
+ * дописываются в сегменты фиксированного формата в каталоге history/.
+ *
+ * <p>Сегменты:
+ * <ul>
+ *     <li>{@code raw-<начало часа>.seg} — все изменения за час;</li>
+ *     <li>{@code hourly-<начало суток>.seg} — последнее значение за каждый час;</li>
+ *     <li>{@code daily-<начало суток>.seg} — последнее значение за сутки.</li>
+ * </ul>
+ * Запись — 32 байта: long msb, long lsb, int stat, int value, long timestamp.
+ * Id статистики стабильны между перезапусками и хранятся в {@code keys.txt} (строка = id).
+ *
+ * <p>Запросы по диапазону отвечаются из индекса в памяти: для каждой пары (игрок, stat)
+ * хранятся отсортированные времена и ссылки на записи в сегментах; значения читаются
+ * позиционным чтением без сканирования журнала. Индекс занимает 16 байт на запись журнала;
+ * компактизация держит его пропорциональным числу рядов × (сырые часы + часовые сутки + дни),
+ * но суточный уровень не удаляется, поэтому индекс растёт на одну запись на ряд в сутки.
+ */
+final class HistoryLog implements StatsChangeListener {
+
+    private static final int RECORD_SIZE = 32;
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private enum Tier {
+        RAW("raw", HOUR, 0),
+        HOURLY("hourly", DAY, HOUR),
+        DAILY("daily", DAY, DAY);
+
+        final String prefix;
+        final long period;
+        final long resolution;
+
+        Tier(String prefix, long period, long resolution) {
+            this.prefix = prefix;
+            this.period = period;
+            this.resolution = resolution;
+        }
+    }
+
+    private record Delta(UUID uuid, int column, int value, long timestamp) {
+    }
+
+    // Будит писателя при остановке, чтобы он не ждал конца poll; в журнал не пишется
+    private static final Delta WAKE_UP = new Delta(new UUID(0, 0), -1, 0, 0);
+
+    private record SeriesKey(UUID uuid, int stat) {
+    }
+
+    /**
+     * Точка истории для ответа API.
+     */
+    record Point(long timestamp, int value) {
+    }
+
+    private static final class Segment {
+        final int id;
+        final Tier level;
+        final long start;
+        final Path path;
+        final FileChannel channel;
+
+        Segment(int id, Tier level, long start, Path path, FileChannel channel) {
+            this.id = id;
+            this.level = level;
+            this.start = start;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    // Временные отметки и ссылки (id сегмента << 32 | номер записи) одного ряда, по возрастанию времени
+    private static final class Series {
+        long[] timestamps = new long[4];
+        long[] refs = new long[4];
+        int size;
+
+        void add(long timestamp, long ref) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                refs = Arrays.copyOf(refs, size * 2);
+            }
+            timestamps[size] = timestamp;
+            refs[size] = ref;
+            size++;
+        }
+
+        /**
+         * Новый ряд: записи из сегментов {@code replaced} убраны, записи {@code added}
+         * (тоже по возрастанию времени) вставлены слиянием.
+         */
+        Series replace(Set<Integer> replaced, Series added) {
+            Series result = new Series();
+            result.timestamps = new long[size + added.size];
+            result.refs = new long[size + added.size];
+            int i = 0;
+            int j = 0;
+            while (i < size || j < added.size) {
+                if (i < size && replaced.contains((int) (refs[i] >>> 32))) {
+                    i++;
+                } else if (j >= added.size || (i < size && timestamps[i] <= added.timestamps[j])) {
+                    result.add(timestamps[i], refs[i]);
+                    i++;
+                } else {
+                    result.add(added.timestamps[j], added.refs[j]);
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+
+    // Обработчик одной записи сегмента: data[offset, offset + RECORD_SIZE), номер записи в сегменте
+    private interface RecordVisitor {
+        void visit(ByteBuffer data, int offset, long record);
+    }
+
+    private final Path directory;
+    private final StatColumns columns;
+    private final Logger logger;
+    private final long hourlyAfterMillis;
+    private final long dailyAfterMillis;
+
+    private final BlockingQueue<Delta> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    // Словарь истории: "section/key" -> стабильный id, и кэш колонка хранилища -> id
+    private final Map<String, Integer> statIds = new ConcurrentHashMap<>();
+    private final List<String> statNames = new ArrayList<>();
+    private volatile int[] columnToStat = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Segment> segments = new HashMap<>();
+    private final Map<SeriesKey, Series> index = new HashMap<>();
+    private int nextSegmentId;
+    private Segment current;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    HistoryLog(Path directory, StatColumns columns, Logger logger,
+               long hourlyAfterMillis, long dailyAfterMillis, int queueCapacity) {
+        this.directory = directory;
+        this.columns = columns;
+        this.logger = logger;
+        this.hourlyAfterMillis = Math.max(HOUR, hourlyAfterMillis);
+        this.dailyAfterMillis = Math.max(this.hourlyAfterMillis + DAY, dailyAfterMillis);
+        this.queue = new LinkedBlockingQueue<>(Math.max(1024, queueCapacity));
+    }
+
+    void start() throws IOException {
+        Files.createDirectories(directory);
+        loadDictionary();
+
+        lock.writeLock().lock();
+        try {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.seg")) {
+                for (Path path : stream) {
+                    openSegment(path);
+                }
+            }
+            rebuildIndex();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "StatsPlugin-History");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void close() {
+        running = false;
+        if (writer != null) {
+            // Без interrupt: прерванный FileChannel.write закрыл бы канал и потерял последнюю пачку
+            queue.offer(WAKE_UP);
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                closeQuietly(segment.channel);
+            }
+            segments.clear();
+            index.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============================
+    // Запись изменений
+    // ============================
+
+    @Override
+    public void onStatsChanged(UUID uuid, PlayerStats previous, PlayerStats current) {
+        // Первая загрузка игрока — это не изменение, а исходное состояние
+        if (previous == null || current == null || !running) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() || j < current.size()) {
+            int before = i < previous.size() ? previous.columnAt(i) : Integer.MAX_VALUE;
+            int after = j < current.size() ? current.columnAt(j) : Integer.MAX_VALUE;
+            if (before < after) {
+                // Ключ пропал из файла: ряд опускается в 0, а не остаётся на последнем значении
+                if (previous.valueAt(i) != 0) {
+                    record(uuid, before, 0, now);
+                }
+                i++;
+            } else if (after < before) {
+                record(uuid, after, current.valueAt(j), now);
+                j++;
+            } else {
+                if (previous.valueAt(i) != current.valueAt(j)) {
+                    record(uuid, after, current.valueAt(j), now);
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private void record(UUID uuid, int column, int value, long timestamp) {
+        if (!queue.offer(new Delta(uuid, column, value, timestamp))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void writeLoop() {
+        List<Delta> batch = new ArrayList<>(4096);
+        ByteBuffer buffer = ByteBuffer.allocate(4096 * RECORD_SIZE);
+        while (running) {
+            try {
+                Delta first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null || first == WAKE_UP) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, 4095);
+                batch.removeIf(delta -> delta == WAKE_UP);
+                append(batch, buffer);
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "[StatsPlugin] Ошибка записи истории: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // Дописываем то, что успело накопиться до остановки
+        queue.drainTo(batch);
+        batch.removeIf(delta -> delta == WAKE_UP);
+        try {
+            if (!batch.isEmpty()) {
+                append(batch, ByteBuffer.allocate(batch.size() * RECORD_SIZE));
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "[StatsPlugin] Ошибка записи истории: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Пачка может пересечь границу часа: каждая подряд идущая группа записей одного часа
+     * уходит в сырой сегмент своего часа.
+     */
+    private void append(List<Delta> batch, ByteBuffer buffer) throws IOException {
+        int from = 0;
+        while (from < batch.size()) {
+            long hourStart = hourStart(batch.get(from).timestamp());
+            int to = from + 1;
+            while (to < batch.size() && hourStart(batch.get(to).timestamp()) == hourStart) {
+                to++;
+            }
+            appendToSegment(batch.subList(from, to), currentSegment(hourStart), buffer);
+            from = to;
+        }
+    }
+
+    private void appendToSegment(List<Delta> batch, Segment segment, ByteBuffer buffer) throws IOException {
+        long firstRecord = segment.channel.size() / RECORD_SIZE;
+
+        int[] stats = new int[batch.size()];
+        buffer.clear();
+        for (int k = 0; k < batch.size(); k++) {
+            Delta delta = batch.get(k);
+            stats[k] = statId(delta.column());
+            buffer.putLong(delta.uuid().getMostSignificantBits());
+            buffer.putLong(delta.uuid().getLeastSignificantBits());
+            buffer.putInt(stats[k]);
+            buffer.putInt(delta.value());
+            buffer.putLong(delta.timestamp());
+        }
+        buffer.flip();
+        long position = firstRecord * RECORD_SIZE;
+        while (buffer.hasRemaining()) {
+            position += segment.channel.write(buffer, position);
+        }
+        written.addAndGet(batch.size());
+
+        lock.writeLock().lock();
+        try {
+            for (int k = 0; k < batch.size(); k++) {
+                Delta delta = batch.get(k);
+                index.computeIfAbsent(new SeriesKey(delta.uuid(), stats[k]), key -> new Series())
+                        .add(delta.timestamp(), ((long) segment.id << 32) | (firstRecord + k));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long hourStart(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, HOUR);
+    }
+
+    private Segment currentSegment(long hourStart) throws IOException {
+        Segment segment = current;
+        if (segment != null && segment.start == hourStart) {
+            return segment;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Segment existing : segments.values()) {
+                if (existing.level == Tier.RAW && existing.start == hourStart) {
+                    current = existing;
+                    return existing;
+                }
+            }
+            current = openSegment(directory.resolve(Tier.RAW.prefix + "-" + hourStart + ".seg"));
+            return current;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============================
+    // Запросы
+    // ============================
+
+    /**
+     * Точки ряда в диапазоне [from, to], не больше {@code maxPoints} (самые ранние).
+     */
+    List<Point> query(UUID uuid, String section, String key, long from, long to, int maxPoints) throws IOException {
+        Integer stat = statIds.get(section + "/" + key);
+        if (stat == null) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Series series = index.get(new SeriesKey(uuid, stat));
+            if (series == null) {
+                return List.of();
+            }
+            int startIdx = lowerBound(series.timestamps, series.size, from);
+            List<Point> points = new ArrayList<>();
+            ByteBuffer value = ByteBuffer.allocate(4);
+            for (int k = startIdx; k < series.size && series.timestamps[k] <= to && points.size() < maxPoints; k++) {
+                long ref = series.refs[k];
+                Segment segment = segments.get((int) (ref >>> 32));
+                if (segment == null) {
+                    continue;
+                }
+                value.clear();
+                long position = (ref & 0xFFFFFFFFL) * RECORD_SIZE + 20;
+                while (value.hasRemaining() && segment.channel.read(value, position + value.position()) >= 0) {
+                    // читаем 4 байта значения
+                }
+                points.add(new Point(series.timestamps[k], value.getInt(0)));
+            }
+            return points;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long writtenRecords() {
+        return written.get();
+    }
+
+    long droppedRecords() {
+        return dropped.get();
+    }
+
+    // ============================
+    // Компактизация
+    // ============================
+
+    /**
+     * Сжимает старые сегменты: сырые старше hourly-after — до часового разрешения,
+     * часовые старше daily-after — до суточного. Вызывается из async-обслуживания.
+     */
+    void compact() {
+        long now = System.currentTimeMillis();
+        try {
+            Map<Long, List<Segment>> toHourly = new LinkedHashMap<>();
+            Map<Long, List<Segment>> toDaily = new LinkedHashMap<>();
+            lock.readLock().lock();
+            try {
+                for (Segment segment : segments.values()) {
+                    long end = segment.start + segment.level.period;
+                    long dayStart = segment.start - Math.floorMod(segment.start, DAY);
+                    if (segment.level == Tier.RAW && segment != current && end <= now - hourlyAfterMillis) {
+                        toHourly.computeIfAbsent(dayStart, d -> new ArrayList<>()).add(segment);
+                    } else if (segment.level == Tier.HOURLY && end <= now - dailyAfterMillis) {
+                        toDaily.computeIfAbsent(dayStart, d -> new ArrayList<>()).add(segment);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            for (Map.Entry<Long, List<Segment>> day : toHourly.entrySet()) {
+                merge(day.getValue(), Tier.HOURLY, day.getKey());
+            }
+            for (Map.Entry<Long, List<Segment>> day : toDaily.entrySet()) {
+                merge(day.getValue(), Tier.DAILY, day.getKey());
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "[StatsPlugin] Ошибка компактизации истории: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Переписывает сегменты одних суток (вместе с уже существующим сегментом целевого уровня)
+     * в один сегмент с разрешением уровня: для каждой пары (игрок, stat) остаётся
+     * последнее значение в каждом интервале.
+     */
+    private void merge(List<Segment> sources, Tier level, long dayStart) throws IOException {
+        Path targetPath = directory.resolve(level.prefix + "-" + dayStart + ".seg");
+        List<Segment> inputs = new ArrayList<>(sources);
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment.path.equals(targetPath)) {
+                    inputs.add(segment);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // (uuid, stat, интервал) -> последняя запись
+        Map<List<Object>, byte[]> latest = new HashMap<>();
+        for (Segment segment : inputs) {
+            forEachRecord(segment.channel, (data, base, n) -> {
+                UUID uuid = new UUID(data.getLong(base), data.getLong(base + 8));
+                int stat = data.getInt(base + 16);
+                long ts = data.getLong(base + 24);
+                List<Object> bucket = List.of(uuid, stat, ts / level.resolution);
+                byte[] existing = latest.get(bucket);
+                if (existing == null || ByteBuffer.wrap(existing).getLong(24) <= ts) {
+                    byte[] record = new byte[RECORD_SIZE];
+                    data.get(base, record);
+                    latest.put(bucket, record);
+                }
+            });
+        }
+
+        List<byte[]> records = new ArrayList<>(latest.values());
+        records.sort(Comparator.comparingLong(r -> ByteBuffer.wrap(r).getLong(24)));
+
+        Path tmp = directory.resolve(targetPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            for (byte[] record : records) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.put(record);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+
+        lock.writeLock().lock();
+        try {
+            Set<Integer> replaced = new HashSet<>();
+            for (Segment segment : inputs) {
+                replaced.add(segment.id);
+                segments.remove(segment.id);
+                closeQuietly(segment.channel);
+                if (!segment.path.equals(targetPath)) {
+                    Files.deleteIfExists(segment.path);
+                }
+            }
+            Files.move(tmp, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            reindexMerged(replaced, openSegment(targetPath), records);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============================
+    // Служебное
+    // ============================
+
+    // Вызывается под write-lock
+    private Segment openSegment(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        int dash = name.indexOf('-');
+        if (dash < 0 || !name.endsWith(".seg")) {
+            throw new IOException("неизвестный сегмент истории: " + name);
+        }
+        Tier level = switch (name.substring(0, dash)) {
+            case "raw" -> Tier.RAW;
+            case "hourly" -> Tier.HOURLY;
+            case "daily" -> Tier.DAILY;
+            default -> throw new IOException("неизвестный сегмент истории: " + name);
+        };
+        long start = Long.parseLong(name.substring(dash + 1, name.length() - 4));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(nextSegmentId++, level, start, path, channel);
+        segments.put(segment.id, segment);
+        return segment;
+    }
+
+    // Вызывается под write-lock при старте: полностью перестраивает индекс по сегментам в порядке времени
+    private void rebuildIndex() throws IOException {
+        index.clear();
+        List<Segment> ordered = new ArrayList<>(segments.values());
+        ordered.sort(Comparator.comparingLong((Segment s) -> s.start).thenComparing(s -> -s.level.ordinal()));
+        for (Segment segment : ordered) {
+            forEachRecord(segment.channel, (data, base, record) -> {
+                UUID uuid = new UUID(data.getLong(base), data.getLong(base + 8));
+                int stat = data.getInt(base + 16);
+                long ts = data.getLong(base + 24);
+                index.computeIfAbsent(new SeriesKey(uuid, stat), key -> new Series())
+                        .add(ts, ((long) segment.id << 32) | record);
+            });
+        }
+    }
+
+    // Вызывается под write-lock после слияния: ссылки на слитые сегменты заменяются ссылками
+    // на новый. Трогаются только ряды из слитых записей, остальной журнал не перечитывается
+    private void reindexMerged(Set<Integer> replaced, Segment target, List<byte[]> records) {
+        Map<SeriesKey, Series> added = new HashMap<>();
+        for (int k = 0; k < records.size(); k++) {
+            ByteBuffer r = ByteBuffer.wrap(records.get(k));
+            SeriesKey key = new SeriesKey(new UUID(r.getLong(0), r.getLong(8)), r.getInt(16));
+            added.computeIfAbsent(key, x -> new Series()).add(r.getLong(24), ((long) target.id << 32) | k);
+        }
+        for (Map.Entry<SeriesKey, Series> entry : added.entrySet()) {
+            Series existing = index.get(entry.getKey());
+            index.put(entry.getKey(), existing == null ? entry.getValue() : existing.replace(replaced, entry.getValue()));
+        }
+    }
+
+    private int statId(int column) throws IOException {
+        int[] cache = columnToStat;
+        if (column < cache.length && cache[column] > 0) {
+            return cache[column] - 1;
+        }
+
+        String name = columns.section(column) + "/" + columns.key(column);
+        Integer id = statIds.get(name);
+        if (id == null) {
+            synchronized (statNames) {
+                id = statNames.size();
+                statNames.add(name);
+                statIds.put(name, id);
+                Files.writeString(directory.resolve("keys.txt"), name + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        }
+
+        if (column >= cache.length) {
+            cache = Arrays.copyOf(cache, Math.max(column + 1, cache.length * 2));
+        }
+        cache[column] = id + 1;
+        columnToStat = cache;
+        return id;
+    }
+
+    private void loadDictionary() throws IOException {
+        Path keys = directory.resolve("keys.txt");
+        if (!Files.exists(keys)) {
+            return;
+        }
+        for (String line : Files.readAllLines(keys, StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                statIds.put(line, statNames.size());
+                statNames.add(line);
+            }
+        }
+    }
+
+    // Читает сегмент кусками: размер сегмента не ограничен размером одного буфера
+    private static void forEachRecord(FileChannel channel, RecordVisitor visitor) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(RECORD_SIZE * 2048);
+        long size = channel.size() / RECORD_SIZE * RECORD_SIZE;
+        long position = 0;
+        long record = 0;
+        while (position < size) {
+            data.clear();
+            data.limit((int) Math.min(data.capacity(), size - position));
+            while (data.hasRemaining()) {
+                if (channel.read(data, position + data.position()) < 0) {
+                    size = position; // файл укоротился во время чтения
+                    break;
+                }
+            }
+            int end = data.position() / RECORD_SIZE * RECORD_SIZE;
+            for (int base = 0; base < end; base += RECORD_SIZE) {
+                visitor.visit(data, base, record++);
+            }
+            position += end;
+            if (end == 0) {
+                break;
+            }
+        }
+    }
+
+    private static int lowerBound(long[] values, int size, long key) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
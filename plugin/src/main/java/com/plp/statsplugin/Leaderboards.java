@@ -0,0 +1,112 @@
+package com.plp.statsplugin;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индексы рейтингов для /moss/top/&lt;stat_key&gt;. Индекс ключа строится при первом запросе,
+ * затем обновляется только при замене статистики игрока и удаляется после простоя.
+ */
+final class Leaderboards implements StatsChangeListener {
+
+    private final StatStore store;
+    private final long idleMillis;
+    private final int maxIndexes;
+    // По id колонки, а не по строке ключа: ключ без раздела может со временем разрешиться
+    // в другой раздел (колонку из более раннего раздела встретили позже), и тогда он просто
+    // начнёт читать другой индекс, а старый удалится по простою
+    private final Map<Integer, RankIndex> indexes = new ConcurrentHashMap<>();
+
+    Leaderboards(StatStore store, long idleMillis, int maxIndexes) {
+        this.store = store;
+        this.idleMillis = idleMillis;
+        this.maxIndexes = Math.max(1, maxIndexes);
+    }
+
+    /**
+     * Первые {@code limit} игроков по ключу статистики; пусто, если ключ ещё не встречался.
+     */
+    List<RankIndex.Entry> top(String statKey, int limit) {
+        RankIndex index = index(statKey);
+        return index == null ? List.of() : index.top(limit);
+    }
+
+    /**
+     * Место игрока по ключу статистики или null, если игрока нет в кэше или ключ не встречался.
+     */
+    RankIndex.Rank rank(String statKey, UUID uuid) {
+        RankIndex index = index(statKey);
+        return index == null ? null : index.rank(uuid);
+    }
+
+    int size() {
+        return indexes.size();
+    }
+
+    @Override
+    public void onStatsChanged(UUID uuid, PlayerStats previous, PlayerStats current) {
+        for (Map.Entry<Integer, RankIndex> entry : indexes.entrySet()) {
+            if (current == null) {
+                entry.getValue().remove(uuid);
+            } else {
+                entry.getValue().update(uuid, current.get(entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Удаляет индексы, к которым не обращались дольше idle-времени,
+     * и самые старые сверх лимита.
+     */
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        indexes.entrySet().removeIf(e -> now - e.getValue().lastAccess() > idleMillis);
+        evictOldest(maxIndexes);
+    }
+
+    // Оставляет не больше limit индексов, удаляя те, к которым дольше всего не обращались
+    private void evictOldest(int limit) {
+        int excess = indexes.size() - limit;
+        if (excess > 0) {
+            List<Map.Entry<Integer, RankIndex>> byAge = new ArrayList<>(indexes.entrySet());
+            byAge.sort(Comparator.comparingLong(e -> e.getValue().lastAccess()));
+            for (int i = 0; i < excess; i++) {
+                indexes.remove(byAge.get(i).getKey(), byAge.get(i).getValue());
+            }
+        }
+    }
+
+    // Индекс ключа или null, если такого ключа нет ни у одного игрока: индекс по несуществующему
+    // ключу держал бы всех игроков с нулём и обновлялся бы на каждое изменение
+    private RankIndex index(String statKey) {
+        int[] resolved = store.columns().resolve(statKey);
+        if (resolved.length == 0) {
+            return null;
+        }
+        int column = resolved[0];
+        RankIndex index = indexes.get(column);
+        if (index != null) {
+            return index;
+        }
+        // Лимит соблюдается при создании, а не только при обслуживании раз в минуту
+        evictOldest(maxIndexes - 1);
+
+        RankIndex created = new RankIndex();
+        created.beginBuild();
+        try {
+            index = indexes.putIfAbsent(column, created);
+            if (index != null) {
+                return index;
+            }
+            // Изменения, пришедшие во время обхода, ждут блокировку и применятся после него
+            store.forEachValue(column, created::update);
+        } finally {
+            created.finishBuild();
+        }
+        return created;
+    }
+}
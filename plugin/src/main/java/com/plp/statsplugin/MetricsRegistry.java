@@ -0,0 +1,203 @@
+package com.plp.statsplugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Реестр метрик без блокировок: счётчики и гистограммы на {@link LongAdder},
+ * значения-функции (gauge) вычисляются при выгрузке. Экспорт — текстовый формат Prometheus.
+ *
+ * <p>Серии создаются один раз через {@code computeIfAbsent}; горячий путь — это чтение
+ * из ConcurrentHashMap и инкремент LongAdder. Метки передаются парами: имя, значение.
+ */
+final class MetricsRegistry {
+
+    /** Границы гистограмм длительности HTTP-запросов (сек). */
+    static final double[] LATENCY_BUCKETS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    /** Границы гистограмм длительности обновлений статистики (сек). */
+    static final double[] REFRESH_BUCKETS = {
+            0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 60, 120
+    };
+
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+        final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        // Метки в текстовом виде ({a="b"}) -> серия
+        final ConcurrentMap<String, Object> series = new ConcurrentHashMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        void inc() {
+            value.increment();
+        }
+
+        void add(long amount) {
+            value.add(amount);
+        }
+
+        long value() {
+            return value.sum();
+        }
+    }
+
+    static final class Histogram {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder sumNanos = new LongAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void observeNanos(long nanos) {
+            double seconds = nanos / 1e9;
+            int i = 0;
+            while (i < bounds.length && seconds > bounds[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sumNanos.add(nanos);
+        }
+    }
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+    Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).series
+                .computeIfAbsent(labels(labels), k -> new Counter());
+    }
+
+    Histogram histogram(String name, String help, double[] bounds, String... labels) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).series
+                .computeIfAbsent(labels(labels), k -> new Histogram(bounds));
+    }
+
+    /**
+     * Значение, которое вычисляется при каждой выгрузке (размер кэша, память).
+     */
+    void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series.put(labels(labels), value);
+    }
+
+    /**
+     * Монотонный счётчик, который уже ведётся в другом месте (например, AtomicLong загрузчика).
+     */
+    void counterFunction(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).series.put(labels(labels), value);
+    }
+
+    /**
+     * Все метрики в текстовом формате Prometheus 0.0.4, семейства по алфавиту.
+     */
+    String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : new TreeMap<>(families).values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            for (Map.Entry<String, Object> entry : new TreeMap<>(family.series).entrySet()) {
+                String labels = entry.getKey();
+                Object series = entry.getValue();
+                if (series instanceof Counter counter) {
+                    sample(out, family.name, labels, counter.value());
+                } else if (series instanceof DoubleSupplier supplier) {
+                    sample(out, family.name, labels, supplier.getAsDouble());
+                } else if (series instanceof Histogram histogram) {
+                    writeHistogram(out, family.name, labels, histogram);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String labels, Histogram histogram) {
+        long cumulative = 0;
+        for (int i = 0; i < histogram.buckets.length; i++) {
+            cumulative += histogram.buckets[i].sum();
+            String le = i < histogram.bounds.length ? formatDouble(histogram.bounds[i]) : "+Inf";
+            sample(out, name + "_bucket", withLabel(labels, "le", le), cumulative);
+        }
+        sample(out, name + "_sum", labels, histogram.sumNanos.sum() / 1e9);
+        sample(out, name + "_count", labels, cumulative);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ').append(formatDouble(value)).append('\n');
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Метрика " + name + " уже зарегистрирована как " + family.type.text);
+        }
+        return family;
+    }
+
+    private static String labels(String... pairs) {
+        if (pairs.length == 0) {
+            return "";
+        }
+        if (pairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Метки передаются парами имя/значение");
+        }
+        List<String> parts = new ArrayList<>(pairs.length / 2);
+        for (int i = 0; i < pairs.length; i += 2) {
+            parts.add(pairs[i] + "=\"" + escape(pairs[i + 1]) + "\"");
+        }
+        return "{" + String.join(",", parts) + "}";
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        String label = name + "=\"" + value + "\"";
+        return labels.isEmpty() ? "{" + label + "}" : labels.substring(0, labels.length() - 1) + "," + label + "}";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,384 @@
+package com.plp.statsplugin;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Статистика одного игрока в колоночном виде: отсортированные id колонок
+ * из {@link StatColumns} и значения в параллельном массиве примитивов.
+ * Экземпляр неизменяем — при обновлении игрока создаётся новый.
+ */
+final class PlayerStats {
+
+    private final int dataVersion;
+    private final int[] columns;
+    private final int[] values;
+    // Отметка файла, из которого прочитана строка (для пропуска неизменённых файлов)
+    private final long lastModified;
+    private final long fileSize;
+
+    private PlayerStats(int dataVersion, int[] columns, int[] values, long lastModified, long fileSize) {
+        this.dataVersion = dataVersion;
+        this.columns = columns;
+        this.values = values;
+        this.lastModified = lastModified;
+        this.fileSize = fileSize;
+    }
+
+    int dataVersion() {
+        return dataVersion;
+    }
+
+    long lastModified() {
+        return lastModified;
+    }
+
+    long fileSize() {
+        return fileSize;
+    }
+
+    /**
+     * true, если строка прочитана из файла с той же отметкой (mtime + размер).
+     */
+    boolean matches(StatsUtil.FileStamp stamp) {
+        return stamp != null && stamp.lastModified() == lastModified && stamp.size() == fileSize;
+    }
+
+    int size() {
+        return columns.length;
+    }
+
+    int columnAt(int index) {
+        return columns[index];
+    }
+
+    int valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * Значение колонки или 0, если у игрока её нет.
+     */
+    int get(int column) {
+        int idx = Arrays.binarySearch(columns, column);
+        return idx >= 0 ? values[idx] : 0;
+    }
+
+    boolean has(int column) {
+        return Arrays.binarySearch(columns, column) >= 0;
+    }
+
+    /**
+     * Примерный объём строки на куче (заголовки объектов + массивы).
+     */
+    long estimateBytes() {
+        return 40L + arrayBytes(columns.length) * 2;
+    }
+
+    /**
+     * Оценка того, сколько занимало бы то же самое в виде дерева Gson JsonObject:
+     * узел LinkedTreeMap, строка ключа, JsonPrimitive и LazilyParsedNumber со своей строкой.
+     */
+    long estimateJsonTreeBytes(StatColumns registry) {
+        long bytes = 2 * (16L + 48L) + 40L; // root, "stats", DataVersion
+        String lastSection = null;
+        for (int i = 0; i < columns.length; i++) {
+            String section = registry.section(columns[i]);
+            if (!section.equals(lastSection)) {
+                bytes += 16L + 48L + 48L + 40L + section.length();
+                lastSection = section;
+            }
+            bytes += 48L + 40L + registry.key(columns[i]).length()
+                    + 16L + 16L + 40L + digits(values[i]);
+        }
+        return bytes;
+    }
+
+    /**
+     * Собирает JsonObject в формате ванильного файла статистики.
+     */
+    JsonObject toJson(StatColumns registry) {
+        Map<String, JsonObject> sections = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            int column = columns[i];
+            sections.computeIfAbsent(registry.section(column), s -> new JsonObject())
+                    .addProperty(registry.key(column), values[i]);
+        }
+
+        JsonObject stats = new JsonObject();
+        sections.forEach(stats::add);
+
+        JsonObject root = new JsonObject();
+        root.add("stats", stats);
+        root.addProperty("DataVersion", dataVersion);
+        return root;
+    }
+
+    /**
+     * Пишет статистику в формате ванильного файла прямо в поток, без промежуточного JsonObject.
+     */
+    void writeJson(JsonWriter out, StatColumns registry) throws IOException {
+        out.beginObject();
+        out.name("stats").beginObject();
+
+        // Разделов немного (до десятка), поэтому проход по записям на каждый раздел дешевле сортировки
+        String[] sections = new String[8];
+        int sectionCount = 0;
+        for (int column : columns) {
+            String section = registry.section(column);
+            if (indexOf(sections, sectionCount, section) < 0) {
+                if (sectionCount == sections.length) {
+                    sections = Arrays.copyOf(sections, sectionCount * 2);
+                }
+                sections[sectionCount++] = section;
+            }
+        }
+
+        for (int s = 0; s < sectionCount; s++) {
+            out.name(sections[s]).beginObject();
+            for (int i = 0; i < columns.length; i++) {
+                if (registry.section(columns[i]).equals(sections[s])) {
+                    out.name(registry.key(columns[i])).value(values[i]);
+                }
+            }
+            out.endObject();
+        }
+
+        out.endObject();
+        out.name("DataVersion").value(dataVersion);
+        out.endObject();
+    }
+
+    private static int indexOf(String[] array, int length, String value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Переводит дерево ванильного файла статистики в колоночный вид.
+     */
+    static PlayerStats fromJson(JsonObject root, StatColumns registry, StatsUtil.FileStamp stamp) {
+        Builder builder = new Builder(registry).stamp(stamp);
+        if (root == null) {
+            return builder.build();
+        }
+
+        JsonElement version = root.get("DataVersion");
+        if (version != null && version.isJsonPrimitive() && version.getAsJsonPrimitive().isNumber()) {
+            builder.dataVersion((int) version.getAsDouble());
+        }
+
+        JsonElement statsElement = root.get("stats");
+        if (statsElement == null || !statsElement.isJsonObject()) {
+            return builder.build();
+        }
+
+        for (Map.Entry<String, JsonElement> section : statsElement.getAsJsonObject().entrySet()) {
+            if (!section.getValue().isJsonObject()) {
+                continue;
+            }
+            for (Map.Entry<String, JsonElement> stat : section.getValue().getAsJsonObject().entrySet()) {
+                JsonElement value = stat.getValue();
+                if (!value.isJsonPrimitive()) {
+                    continue;
+                }
+                JsonPrimitive primitive = value.getAsJsonPrimitive();
+                if (primitive.isNumber()) {
+                    // Как у потокового парсера: значение вне int прижимается к границе
+                    builder.put(section.getKey(), stat.getKey(), (int) primitive.getAsDouble());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Компактный вид строки для холодного яруса {@link StatStore}: числа в формате varint,
+     * id колонок — разностью с предыдущим (они отсортированы), значения — zigzag.
+     * Типичная строка (небольшие значения) занимает в 2–3 раза меньше, чем два массива int[].
+     */
+    byte[] compact() {
+        byte[] out = new byte[5 + 10 + 10 + 5 + columns.length * 10];
+        int pos = writeVarLong(out, 0, zigzag(dataVersion));
+        pos = writeVarLong(out, pos, lastModified);
+        pos = writeVarLong(out, pos, fileSize);
+        pos = writeVarLong(out, pos, columns.length);
+        int previous = 0;
+        for (int i = 0; i < columns.length; i++) {
+            pos = writeVarLong(out, pos, columns[i] - previous);
+            pos = writeVarLong(out, pos, zigzag(values[i]));
+            previous = columns[i];
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * Восстанавливает строку из {@link #compact()}.
+     */
+    static PlayerStats expand(byte[] data) {
+        int[] cursor = new int[1];
+        int dataVersion = unzigzag(readVarLong(data, cursor));
+        long lastModified = readVarLong(data, cursor);
+        long fileSize = readVarLong(data, cursor);
+        int size = (int) readVarLong(data, cursor);
+        int[] columns = new int[size];
+        int[] values = new int[size];
+        int column = 0;
+        for (int i = 0; i < size; i++) {
+            column += (int) readVarLong(data, cursor);
+            columns[i] = column;
+            values[i] = unzigzag(readVarLong(data, cursor));
+        }
+        return new PlayerStats(dataVersion, columns, values, lastModified, fileSize);
+    }
+
+    /**
+     * Значение колонки прямо из {@link #compact()} (0, если её нет) — без распаковки строки.
+     */
+    static int compactGet(byte[] data, int column) {
+        int[] cursor = new int[1];
+        for (int i = 0; i < 3; i++) {
+            readVarLong(data, cursor); // DataVersion, mtime, размер файла
+        }
+        int size = (int) readVarLong(data, cursor);
+        int current = 0;
+        for (int i = 0; i < size; i++) {
+            current += (int) readVarLong(data, cursor);
+            if (current >= column) {
+                return current == column ? unzigzag(readVarLong(data, cursor)) : 0;
+            }
+            readVarLong(data, cursor);
+        }
+        return 0;
+    }
+
+    /**
+     * Объём компактной строки на куче.
+     */
+    static long compactBytes(byte[] data) {
+        return (16L + data.length + 7) & ~7L;
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unzigzag(long encoded) {
+        int value = (int) encoded;
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int writeVarLong(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    // cursor[0] — текущая позиция в массиве
+    private static long readVarLong(byte[] data, int[] cursor) {
+        int pos = cursor[0];
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        cursor[0] = pos;
+        return value;
+    }
+
+    private static long arrayBytes(int length) {
+        return (16L + 4L * length + 7) & ~7L;
+    }
+
+    private static int digits(int value) {
+        return Integer.toString(value).length();
+    }
+
+    /**
+     * Накопитель для построения {@link PlayerStats} без промежуточных объектов на каждую запись.
+     */
+    static final class Builder {
+
+        private final StatColumns registry;
+        private long[] packed = new long[64];
+        private int size;
+        private int dataVersion;
+        private long lastModified;
+        private long fileSize;
+
+        Builder(StatColumns registry) {
+            this.registry = registry;
+        }
+
+        Builder dataVersion(int dataVersion) {
+            this.dataVersion = dataVersion;
+            return this;
+        }
+
+        Builder stamp(StatsUtil.FileStamp stamp) {
+            if (stamp != null) {
+                this.lastModified = stamp.lastModified();
+                this.fileSize = stamp.size();
+            }
+            return this;
+        }
+
+        Builder put(String section, String key, int value) {
+            return put(registry.intern(section, key), value);
+        }
+
+        Builder put(int column, int value) {
+            if (size == packed.length) {
+                packed = Arrays.copyOf(packed, size * 2);
+            }
+            packed[size++] = ((long) column << 32) | (value & 0xFFFFFFFFL);
+            return this;
+        }
+
+        PlayerStats build() {
+            if (size == 0) {
+                return new PlayerStats(dataVersion, new int[0], new int[0], lastModified, fileSize);
+            }
+
+            Arrays.sort(packed, 0, size);
+
+            int[] columns = new int[size];
+            int[] values = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int column = (int) (packed[i] >>> 32);
+                int value = (int) packed[i];
+                if (count > 0 && columns[count - 1] == column) {
+                    values[count - 1] = value;
+                    continue;
+                }
+                columns[count] = column;
+                values[count] = value;
+                count++;
+            }
+
+            if (count < size) {
+                columns = Arrays.copyOf(columns, count);
+                values = Arrays.copyOf(values, count);
+            }
+            return new PlayerStats(dataVersion, columns, values, lastModified, fileSize);
+        }
+    }
+}
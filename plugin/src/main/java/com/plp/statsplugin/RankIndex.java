@@ -0,0 +1,250 @@
+package com.plp.statsplugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Рейтинг игроков по одному значению: декартово дерево (treap) с размерами поддеревьев,
+ * упорядоченное по (value по убыванию, uuid). Вставка и удаление — O(log n),
+ * первые N записей читаются за O(log n + N), место одного игрока — за O(log n).
+ */
+final class RankIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> values = new HashMap<>();
+    private Node root;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    record Entry(UUID uuid, int value) {
+    }
+
+    /**
+     * Место игрока: {@code rank} — 1 + число игроков со строго большим значением
+     * (равные значения делят место), {@code below} — число игроков со строго меньшим.
+     */
+    record Rank(int value, int rank, int below, int total) {
+    }
+
+    /**
+     * Устанавливает значение игрока (вставка или перемещение в рейтинге).
+     */
+    void update(UUID uuid, int value) {
+        lock.writeLock().lock();
+        try {
+            Integer old = values.put(uuid, value);
+            if (old != null) {
+                if (old == value) {
+                    return;
+                }
+                root = delete(root, old, uuid);
+            }
+            root = insert(root, new Node(value, uuid));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(UUID uuid) {
+        lock.writeLock().lock();
+        try {
+            Integer old = values.remove(uuid);
+            if (old != null) {
+                root = delete(root, old, uuid);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Первые {@code limit} записей рейтинга.
+     */
+    List<Entry> top(int limit) {
+        touch();
+        lock.readLock().lock();
+        try {
+            List<Entry> out = new ArrayList<>(Math.min(limit, size(root)));
+            collect(root, out, limit);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Место игрока в рейтинге или null, если его нет в индексе.
+     */
+    Rank rank(UUID uuid) {
+        touch();
+        lock.readLock().lock();
+        try {
+            Integer value = values.get(uuid);
+            if (value == null) {
+                return null;
+            }
+            int total = size(root);
+            int above = countAbove(root, value);
+            int below = total - countAbove(root, value - 1L);
+            return new Rank(value, above + 1, below, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Захватывает индекс на запись до {@link #finishBuild()}: читатели ждут,
+     * пока индекс не будет заполнен.
+     */
+    void beginBuild() {
+        lock.writeLock().lock();
+    }
+
+    void finishBuild() {
+        lock.writeLock().unlock();
+    }
+
+    // ============================
+    // Treap
+    // ============================
+
+    private static final class Node {
+        final int value;
+        final UUID uuid;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(int value, UUID uuid) {
+            this.value = value;
+            this.uuid = uuid;
+        }
+    }
+
+    private static int compare(int value, UUID uuid, Node node) {
+        int byValue = Integer.compare(node.value, value);
+        return byValue != 0 ? byValue : uuid.compareTo(node.uuid);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static Node insert(Node node, Node item) {
+        if (node == null) {
+            return item;
+        }
+        if (item.priority > node.priority) {
+            Node[] parts = split(node, item.value, item.uuid);
+            item.left = parts[0];
+            item.right = parts[1];
+            return update(item);
+        }
+        if (compare(item.value, item.uuid, node) < 0) {
+            node.left = insert(node.left, item);
+        } else {
+            node.right = insert(node.right, item);
+        }
+        return update(node);
+    }
+
+    private static Node delete(Node node, int value, UUID uuid) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(value, uuid, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, value, uuid);
+        } else {
+            node.right = delete(node.right, value, uuid);
+        }
+        return update(node);
+    }
+
+    // Делит дерево на ключи меньше (value, uuid) и не меньше
+    private static Node[] split(Node node, int value, UUID uuid) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(value, uuid, node) > 0) {
+            Node[] parts = split(node.right, value, uuid);
+            node.right = parts[0];
+            parts[0] = update(node);
+            return parts;
+        }
+        Node[] parts = split(node.left, value, uuid);
+        node.left = parts[1];
+        parts[1] = update(node);
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    // Число узлов со значением строго больше value: спуск по одной ветви
+    private static int countAbove(Node node, long value) {
+        int count = 0;
+        while (node != null) {
+            if (node.value > value) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private static void collect(Node node, List<Entry> out, int limit) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        collect(node.left, out, limit);
+        if (out.size() < limit) {
+            out.add(new Entry(node.uuid, node.value));
+            collect(node.right, out, limit);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.plp.statsplugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Планировщик обновления статистики онлайн игроков.
+ *
+ * <p>Вместо одного всплеска раз в интервал игроки перечитываются небольшими порциями на каждом
+ * такте (async), так что за интервал каждый онлайн игрок обновляется примерно один раз.
+ * Очередной круг упорядочен по давности последнего изменения статистики: активные игроки
+ * обновляются в начале круга. Вход, выход и ручное обновление ставят игрока в срочную очередь
+ * (повторные запросы схлопываются), а главный поток только кладёт UUID в очередь — O(1).
+ * Срочная очередь тоже разбирается порциями: массовый вход не превращается во всплеск чтений.
+ */
+final class RefreshScheduler implements StatsChangeListener {
+
+    private final Supplier<Set<UUID>> online;
+    private final Predicate<UUID> loader;
+    private final long intervalMillis;
+    private final long tickMillis;
+    private final int maxUrgentPerTick;
+
+    // Срочные обновления: очередь в порядке поступления + множество для схлопывания повторов
+    private final Queue<UUID> urgent = new ConcurrentLinkedQueue<>();
+    private final Set<UUID> urgentSet = ConcurrentHashMap.newKeySet();
+    // Время последнего изменения и последнего перечитывания (только онлайн игроки и только
+    // при плановом обходе: без него порядок круга не нужен)
+    private final Map<UUID, Long> lastChanged = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> lastRefreshed = new ConcurrentHashMap<>();
+
+    // Текущий круг планового обновления; трогается только из tick()
+    private final Deque<UUID> round = new ArrayDeque<>();
+    private int roundBudget;
+    private volatile int roundRemaining;
+
+    /**
+     * @param online         текущие онлайн игроки
+     * @param loader         перечитывает файл игрока (true — статистика найдена)
+     * @param intervalMillis за сколько обходится весь онлайн (0 — только срочные обновления)
+     * @param tickMillis     период вызова {@link #tick()}
+     * @param maxUrgentPerTick сколько срочных обновлений выполняется за такт, остальные ждут следующего
+     */
+    RefreshScheduler(Supplier<Set<UUID>> online, Predicate<UUID> loader, long intervalMillis, long tickMillis,
+                     int maxUrgentPerTick) {
+        this.online = online;
+        this.loader = loader;
+        this.intervalMillis = Math.max(0, intervalMillis);
+        this.tickMillis = Math.max(1, tickMillis);
+        this.maxUrgentPerTick = Math.max(1, maxUrgentPerTick);
+    }
+
+    /**
+     * Ставит игрока в срочную очередь; повторный запрос до обработки ничего не добавляет.
+     * Безопасно вызывать из главного потока.
+     */
+    void requestNow(UUID uuid) {
+        if (uuid != null && urgentSet.add(uuid)) {
+            urgent.add(uuid);
+        }
+    }
+
+    /**
+     * Сколько игроков ждёт обновления: срочные + остаток текущего круга.
+     */
+    int pending() {
+        return urgentSet.size() + roundRemaining;
+    }
+
+    /**
+     * Один такт (async): до {@code maxUrgentPerTick} срочных обновлений и очередная порция
+     * кругового обхода. Такты не перекрываются, даже если очередной запущен до конца предыдущего.
+     * @return сколько файлов проверено
+     */
+    synchronized int tick() {
+        int processed = 0;
+        long now = System.currentTimeMillis();
+
+        UUID uuid;
+        while (processed < maxUrgentPerTick && (uuid = urgent.poll()) != null) {
+            urgentSet.remove(uuid);
+            refresh(uuid, now);
+            processed++;
+        }
+
+        if (intervalMillis == 0) {
+            return processed;
+        }
+        if (round.isEmpty()) {
+            startRound();
+        }
+
+        // Игрок, только что обновлённый срочно, в этом круге повторно не читается
+        long freshMillis = intervalMillis / 2;
+        for (int i = 0; i < roundBudget && !round.isEmpty(); ) {
+            uuid = round.poll();
+            if (!online.get().contains(uuid)) {
+                continue;
+            }
+            Long refreshed = lastRefreshed.get(uuid);
+            if (refreshed != null && now - refreshed < freshMillis) {
+                continue;
+            }
+            refresh(uuid, now);
+            processed++;
+            i++;
+        }
+        roundRemaining = round.size();
+        return processed;
+    }
+
+    @Override
+    public void onStatsChanged(UUID uuid, PlayerStats previous, PlayerStats current) {
+        if (intervalMillis > 0 && online.get().contains(uuid)) {
+            lastChanged.put(uuid, System.currentTimeMillis());
+        }
+    }
+
+    private void refresh(UUID uuid, long now) {
+        // Выход игрока тоже ставит срочное обновление: его отметки больше не нужны
+        if (intervalMillis > 0 && online.get().contains(uuid)) {
+            lastRefreshed.put(uuid, now);
+        } else {
+            lastRefreshed.remove(uuid);
+            lastChanged.remove(uuid);
+        }
+        loader.test(uuid);
+    }
+
+    // Новый круг: онлайн игроки от недавно изменившихся к давно не менявшимся
+    private void startRound() {
+        Set<UUID> players = online.get();
+        lastChanged.keySet().retainAll(players);
+        lastRefreshed.keySet().retainAll(players);
+
+        List<UUID> order = new ArrayList<>(players);
+        order.sort(Comparator.comparingLong((UUID id) -> lastChanged.getOrDefault(id, 0L)).reversed());
+        round.addAll(order);
+
+        // Порция на такт: весь круг укладывается в интервал
+        long ticks = Math.max(1, intervalMillis / tickMillis);
+        roundBudget = (int) Math.max(1, (order.size() + ticks - 1) / ticks);
+    }
+}
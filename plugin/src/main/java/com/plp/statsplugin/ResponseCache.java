@@ -0,0 +1,196 @@
+package com.plp.statsplugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш сериализованных ответов API по ключу (endpoint + query) и версии данных.
+ * Запись действительна, пока версия данных в {@link StatsManager} не изменилась.
+ * Сжатые варианты тела строятся лениво и хранятся рядом, поэтому горячий ответ
+ * сжимается один раз на версию данных, а не на каждый запрос.
+ */
+final class ResponseCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    /**
+     * Кодировка тела ответа и суффикс ETag для неё.
+     */
+    enum Encoding {
+        IDENTITY(null, ""),
+        GZIP("gzip", "-gz"),
+        DEFLATE("deflate", "-df");
+
+        private final String token;
+        private final String etagSuffix;
+
+        Encoding(String token, String etagSuffix) {
+            this.token = token;
+            this.etagSuffix = etagSuffix;
+        }
+
+        String token() {
+            return token;
+        }
+
+        /**
+         * ETag конкретного представления: у сжатых вариантов свой суффикс внутри кавычек.
+         */
+        String etag(String baseEtag) {
+            if (etagSuffix.isEmpty()) {
+                return baseEtag;
+            }
+            return baseEtag.substring(0, baseEtag.length() - 1) + etagSuffix + "\"";
+        }
+
+        /**
+         * Выбирает кодировку по заголовку Accept-Encoding: gzip, затем deflate, иначе без сжатия.
+         */
+        static Encoding negotiate(String acceptEncoding) {
+            if (acceptEncoding == null || acceptEncoding.isBlank()) {
+                return IDENTITY;
+            }
+            boolean gzip = false;
+            boolean deflate = false;
+            for (String part : acceptEncoding.split(",")) {
+                String[] params = part.trim().split(";");
+                String coding = params[0].trim().toLowerCase();
+                if (isRejected(params)) {
+                    continue;
+                }
+                if (coding.equals("gzip") || coding.equals("x-gzip") || coding.equals("*")) {
+                    gzip = true;
+                } else if (coding.equals("deflate")) {
+                    deflate = true;
+                }
+            }
+            return gzip ? GZIP : deflate ? DEFLATE : IDENTITY;
+        }
+
+        private static boolean isRejected(String[] params) {
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    static final class Entry {
+        private final long version;
+        private final String etag;
+        private final byte[] body;
+        private final String contentType;
+        private volatile byte[] gzip;
+        private volatile byte[] deflate;
+
+        Entry(long version, String etag, byte[] body, String contentType) {
+            this.version = version;
+            this.etag = etag;
+            this.body = body;
+            this.contentType = contentType;
+        }
+
+        long version() {
+            return version;
+        }
+
+        String etag() {
+            return etag;
+        }
+
+        String contentType() {
+            return contentType;
+        }
+
+        /**
+         * Тело в нужной кодировке; сжатый вариант создаётся при первом запросе.
+         */
+        byte[] body(Encoding encoding) {
+            switch (encoding) {
+                case GZIP -> {
+                    byte[] bytes = gzip;
+                    if (bytes == null) {
+                        bytes = compress(encoding);
+                        gzip = bytes;
+                    }
+                    return bytes;
+                }
+                case DEFLATE -> {
+                    byte[] bytes = deflate;
+                    if (bytes == null) {
+                        bytes = compress(encoding);
+                        deflate = bytes;
+                    }
+                    return bytes;
+                }
+                default -> {
+                    return body;
+                }
+            }
+        }
+
+        int size() {
+            return body.length;
+        }
+
+        private byte[] compress(Encoding encoding) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+            try (OutputStream out = encoding == Encoding.GZIP
+                    ? new GZIPOutputStream(buffer, 8192)
+                    : new DeflaterOutputStream(buffer)) {
+                out.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    ResponseCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Запись для ключа, если она построена для той же версии данных.
+     */
+    Entry get(String key, long version) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.version() == version ? entry : null;
+    }
+
+    void put(String key, Entry entry) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            // Сначала выбрасываем устаревшие версии, затем при необходимости всё
+            entries.values().removeIf(e -> e.version() != entry.version());
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Строгий ETag для пары (ключ, версия): содержимое ответа однозначно определяется ими.
+     */
+    static String etag(String key, long version) {
+        return "\"v" + Long.toHexString(version) + "-" + Integer.toHexString(key.hashCode()) + "\"";
+    }
+}
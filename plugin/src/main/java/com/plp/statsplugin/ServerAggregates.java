@@ -0,0 +1,62 @@
+package com.plp.statsplugin;
+
+import com.google.gson.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Серверные суммы для /moss/summary. Каждая сумма — 64-битный счётчик,
+ * который двигается на разницу (новое − старое) при замене статистики игрока,
+ * поэтому чтение не обходит кэш.
+ */
+final class ServerAggregates implements StatsChangeListener {
+
+    private final StatColumns columns;
+    private final String[] names;
+    private final StatSelector[] selectors;
+    private final LongAdder[] totals;
+
+    ServerAggregates(StatColumns columns, Map<String, StatSelector> definitions) {
+        this.columns = columns;
+        this.names = definitions.keySet().toArray(new String[0]);
+        this.selectors = definitions.values().toArray(new StatSelector[0]);
+        this.totals = new LongAdder[names.length];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Набор сумм по умолчанию — тот же, что раньше считался в WebServer.
+     */
+    static Map<String, StatSelector> defaults() {
+        Map<String, StatSelector> defaults = new LinkedHashMap<>();
+        defaults.put("total_jumps", new StatSelector("minecraft:custom", "minecraft:jump"));
+        defaults.put("total_deaths", new StatSelector("minecraft:custom", "minecraft:deaths"));
+        defaults.put("total_playtime", new StatSelector("minecraft:custom", "minecraft:play_time"));
+        defaults.put("blocks_mined", new StatSelector("minecraft:mined", StatSelector.WILDCARD));
+        defaults.put("items_crafted", new StatSelector("minecraft:crafted", StatSelector.WILDCARD));
+        return defaults;
+    }
+
+    @Override
+    public void onStatsChanged(UUID uuid, PlayerStats previous, PlayerStats current) {
+        for (int i = 0; i < selectors.length; i++) {
+            long delta = selectors[i].value(current, columns) - selectors[i].value(previous, columns);
+            if (delta != 0) {
+                totals[i].add(delta);
+            }
+        }
+    }
+
+    JsonObject toJson() {
+        JsonObject out = new JsonObject();
+        for (int i = 0; i < names.length; i++) {
+            out.addProperty(names[i], totals[i].sum());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,169 @@
+package com.plp.statsplugin;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Реестр колонок статистики: каждая пара section + key получает свой int id.
+ * Строки хранятся один раз на весь сервер, а строки игроков ({@link PlayerStats})
+ * ссылаются на них только через id.
+ */
+final class StatColumns {
+
+    /**
+     * Разделы, в которых ищется ключ без указания раздела (порядок важен).
+     */
+    static final String[] SEARCH_SECTIONS = {
+            "minecraft:custom",
+            "minecraft:mined",
+            "minecraft:crafted",
+            "minecraft:used",
+            "minecraft:broken",
+            "minecraft:picked_up",
+            "minecraft:dropped"
+    };
+
+    private static final int[] NO_COLUMNS = new int[0];
+
+    // section -> (key -> id)
+    private final ConcurrentMap<String, ConcurrentMap<String, Integer>> ids = new ConcurrentHashMap<>();
+    // Таблица разрешения ключей API: key -> id колонок в порядке SEARCH_SECTIONS,
+    // "section/key" -> единственная колонка. Любой поиск — одна проба хэш-таблицы.
+    private final ConcurrentMap<String, int[]> byKey = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    private volatile String[] sections = new String[16];
+    private volatile String[] keys = new String[16];
+    private volatile int size;
+
+    /**
+     * Возвращает id колонки, при необходимости регистрируя новую.
+     */
+    int intern(String section, String key) {
+        ConcurrentMap<String, Integer> sectionIds = ids.get(section);
+        if (sectionIds != null) {
+            Integer id = sectionIds.get(key);
+            if (id != null) {
+                return id;
+            }
+        }
+
+        synchronized (lock) {
+            sectionIds = ids.computeIfAbsent(section, s -> new ConcurrentHashMap<>());
+            Integer id = sectionIds.get(key);
+            if (id != null) {
+                return id;
+            }
+
+            int newId = size;
+            if (newId == keys.length) {
+                sections = Arrays.copyOf(sections, newId * 2);
+                keys = Arrays.copyOf(keys, newId * 2);
+            }
+            sections[newId] = section;
+            keys[newId] = key;
+            size = newId + 1;
+            sectionIds.put(key, newId);
+
+            byKey.put(section + "/" + key, new int[]{newId});
+            if (searchOrder(section) >= 0) {
+                byKey.put(key, insertBySection(byKey.getOrDefault(key, NO_COLUMNS), newId));
+            }
+            return newId;
+        }
+    }
+
+    /**
+     * Id колонки или -1, если такая пара section + key ещё не встречалась.
+     */
+    int find(String section, String key) {
+        ConcurrentMap<String, Integer> sectionIds = ids.get(section);
+        if (sectionIds == null) {
+            return -1;
+        }
+        Integer id = sectionIds.get(key);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Колонки ключа API: для {@code section/key} — одна колонка, для ключа без раздела —
+     * все разделы поиска, где он встречался, в порядке {@link #SEARCH_SECTIONS}.
+     * Массив нельзя изменять.
+     */
+    int[] resolve(String statKey) {
+        return byKey.getOrDefault(statKey, NO_COLUMNS);
+    }
+
+    /**
+     * Приводит ключ API к каноническому виду. Для {@code section/key} допускается короткая
+     * форма без пространства имён: {@code mined/stone} → {@code minecraft:mined/minecraft:stone}.
+     * Ключ без раздела возвращается как есть.
+     */
+    static String canonicalKey(String statKey) {
+        if (statKey == null) {
+            return null;
+        }
+        String trimmed = statKey.trim();
+        int slash = trimmed.indexOf('/');
+        if (slash < 0) {
+            return trimmed;
+        }
+        return namespaced(trimmed.substring(0, slash)) + "/" + namespaced(trimmed.substring(slash + 1));
+    }
+
+    static boolean isQualified(String statKey) {
+        return statKey.indexOf('/') >= 0;
+    }
+
+    private static String namespaced(String id) {
+        return id.indexOf(':') >= 0 || id.equals(StatSelector.WILDCARD) ? id : "minecraft:" + id;
+    }
+
+    String section(int id) {
+        return sections[id];
+    }
+
+    String key(int id) {
+        return keys[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Примерный объём самого реестра (строки и карты), общий для всех игроков.
+     */
+    long estimateBytes() {
+        long bytes = 0;
+        int count = size;
+        String[] keySnapshot = keys;
+        for (int i = 0; i < count; i++) {
+            bytes += 40L + keySnapshot[i].length() + 64L;
+        }
+        return bytes;
+    }
+
+    private int[] insertBySection(int[] existing, int id) {
+        int order = searchOrder(sections[id]);
+        int[] result = new int[existing.length + 1];
+        int pos = 0;
+        while (pos < existing.length && searchOrder(sections[existing[pos]]) < order) {
+            result[pos] = existing[pos];
+            pos++;
+        }
+        result[pos] = id;
+        System.arraycopy(existing, pos, result, pos + 1, existing.length - pos);
+        return result;
+    }
+
+    private static int searchOrder(String section) {
+        for (int i = 0; i < SEARCH_SECTIONS.length; i++) {
+            if (SEARCH_SECTIONS[i].equals(section)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
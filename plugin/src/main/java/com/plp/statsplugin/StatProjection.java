@@ -0,0 +1,117 @@
+package com.plp.statsplugin;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Проекция статистики игрока по параметру {@code ?fields=}: список {@link StatSelector}
+ * через запятую, например {@code minecraft:custom/minecraft:jump,minecraft:mined/*}.
+ *
+ * <p>Результат пишется прямо из {@link PlayerStats} в {@link JsonWriter} в формате ванильного
+ * файла (stats → раздел → ключ), только с выбранными значениями; отсутствующие у игрока
+ * ключи и пустые разделы пропускаются.
+ */
+final class StatProjection {
+
+    static final int MAX_SELECTORS = 64;
+
+    // Раздел -> ключи (пусто = весь раздел), в порядке первого упоминания
+    private final Map<String, List<String>> sections;
+
+    private StatProjection(Map<String, List<String>> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Разбирает значение параметра fields.
+     * @return null, если хотя бы один селектор некорректен или их слишком много
+     */
+    static StatProjection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        String[] parts = fields.split(",");
+        if (parts.length > MAX_SELECTORS) {
+            return null;
+        }
+
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        for (String part : parts) {
+            StatSelector selector = StatSelector.parse(part);
+            if (selector == null) {
+                return null;
+            }
+            List<String> keys = sections.computeIfAbsent(selector.section(), s -> new ArrayList<>());
+            if (selector.isWildcard()) {
+                keys.clear();
+                keys.add(StatSelector.WILDCARD);
+            } else if (!keys.contains(StatSelector.WILDCARD) && !keys.contains(selector.key())) {
+                keys.add(selector.key());
+            }
+        }
+        return new StatProjection(sections);
+    }
+
+    /**
+     * true, если ключ попадает в проекцию (явно или через {@code section/*}).
+     */
+    boolean includes(String section, String key) {
+        List<String> keys = sections.get(section);
+        return keys != null && (keys.contains(StatSelector.WILDCARD) || keys.contains(key));
+    }
+
+    /**
+     * Пишет выбранные значения строки игрока; для {@code row == null} — пустой объект.
+     */
+    void writeJson(JsonWriter out, PlayerStats row, StatColumns columns) throws IOException {
+        out.beginObject();
+        if (row == null) {
+            out.endObject();
+            return;
+        }
+
+        out.name("stats").beginObject();
+        for (Map.Entry<String, List<String>> entry : sections.entrySet()) {
+            String section = entry.getKey();
+            List<String> keys = entry.getValue();
+            boolean open = false;
+
+            if (keys.contains(StatSelector.WILDCARD)) {
+                for (int i = 0; i < row.size(); i++) {
+                    int column = row.columnAt(i);
+                    if (section.equals(columns.section(column))) {
+                        open = beginSection(out, section, open);
+                        out.name(columns.key(column)).value(row.valueAt(i));
+                    }
+                }
+            } else {
+                for (String key : keys) {
+                    int column = columns.find(section, key);
+                    if (column >= 0 && row.has(column)) {
+                        open = beginSection(out, section, open);
+                        out.name(key).value(row.get(column));
+                    }
+                }
+            }
+
+            if (open) {
+                out.endObject();
+            }
+        }
+        out.endObject();
+        out.name("DataVersion").value(row.dataVersion());
+        out.endObject();
+    }
+
+    private static boolean beginSection(JsonWriter out, String section, boolean open) throws IOException {
+        if (!open) {
+            out.name(section).beginObject();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.plp.statsplugin;
+
+/**
+ * Ссылка на статистику с явным разделом: {@code minecraft:custom/minecraft:jump}
+ * или {@code minecraft:mined/*} (сумма по всему разделу).
+ */
+record StatSelector(String section, String key) {
+
+    static final String WILDCARD = "*";
+
+    /**
+     * Разбирает строку вида section/key. Возвращает null, если формат неверный.
+     * Короткая форма приводится к канонической через {@link StatColumns#canonicalKey}:
+     * {@code mined/stone} → {@code minecraft:mined/minecraft:stone}.
+     */
+    static StatSelector parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        int slash = trimmed.indexOf('/');
+        if (slash <= 0 || slash == trimmed.length() - 1 || trimmed.indexOf('/', slash + 1) >= 0) {
+            return null;
+        }
+        String canonical = StatColumns.canonicalKey(trimmed);
+        int canonicalSlash = canonical.indexOf('/');
+        return new StatSelector(canonical.substring(0, canonicalSlash), canonical.substring(canonicalSlash + 1));
+    }
+
+    boolean isWildcard() {
+        return WILDCARD.equals(key);
+    }
+
+    /**
+     * Значение селектора для строки игрока; для раздела целиком — сумма в long.
+     */
+    long value(PlayerStats row, StatColumns columns) {
+        if (row == null) {
+            return 0;
+        }
+        if (!isWildcard()) {
+            int column = columns.find(section, key);
+            return column < 0 ? 0 : row.get(column);
+        }
+
+        long sum = 0;
+        for (int i = 0; i < row.size(); i++) {
+            if (section.equals(columns.section(row.columnAt(i)))) {
+                sum += row.valueAt(i);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return section + "/" + key;
+    }
+}
@@ -0,0 +1,335 @@
+package com.plp.statsplugin;
+
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Хранилище статистики всех игроков в колоночном виде.
+ * Заменяет Map&lt;UUID, JsonObject&gt;: ключи статистики интернированы в {@link StatColumns},
+ * значения лежат в примитивных массивах {@link PlayerStats}.
+ *
+ * <p>Строки делятся на два яруса. Горячие — {@link PlayerStats} на куче: онлайн игроки,
+ * недавно запрошенные и свежие изменения. Когда горячий ярус превышает бюджет памяти,
+ * {@link #trim} переводит давно не запрошенных оффлайн игроков в холодный ярус —
+ * компактный вид {@link PlayerStats#compact()}; запрос игрока возвращает его обратно.
+ * Смена яруса не меняет данных и не оповещает подписчиков, а {@link #get} и обходы
+ * видят все строки, поэтому топы, суммы и распределения от яруса не зависят.
+ *
+ * <p>Бюджет ограничивает только горячий ярус. Холодные строки не выгружаются на диск —
+ * перестроение индексов читает каждую строку, — поэтому общий объём кэша по-прежнему растёт
+ * линейно с числом игроков, только в несколько раз медленнее. Обходы не распаковывают
+ * холодный ярус целиком: {@link #forEachValue} читает одну колонку прямо из байтов,
+ * {@link #forEachStored} отдаёт строки как есть для распаковки по одной.
+ */
+final class StatStore {
+
+    // Горячий ярус после trim опускается до этой доли бюджета, чтобы не вытеснять на каждой записи
+    private static final double TRIM_TARGET = 0.9;
+
+    private final StatColumns columns = new StatColumns();
+    // Значение — PlayerStats (горячая строка) или byte[] (холодная, PlayerStats.compact())
+    private final Map<UUID, Object> rows = new ConcurrentHashMap<>();
+    // UUID в порядке их строкового представления — для стабильной постраничной выдачи
+    private final NavigableSet<UUID> sortedIds = new ConcurrentSkipListSet<>(StatStore::compareAsString);
+    // Время последнего запроса горячей строки — порядок вытеснения (LRU)
+    private final Map<UUID, Long> lastAccess = new ConcurrentHashMap<>();
+    private final long hotBudgetBytes;
+    private final AtomicLong hotBytes = new AtomicLong();
+    private final AtomicLong coldBytes = new AtomicLong();
+    private final AtomicInteger coldRows = new AtomicInteger();
+    // Для отчёта о памяти без обхода строк: записи и оценка того же в виде дерева JsonObject
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong jsonTreeBytes = new AtomicLong();
+    private final AtomicLong demotions = new AtomicLong();
+    private final AtomicLong promotions = new AtomicLong();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    /**
+     * @param hotBudgetBytes бюджет горячего яруса (0 — без ограничения, все строки горячие)
+     */
+    StatStore(long hotBudgetBytes) {
+        this.hotBudgetBytes = Math.max(0, hotBudgetBytes);
+    }
+
+    StatColumns columns() {
+        return columns;
+    }
+
+    /**
+     * Строка игрока из любого яруса; холодная строка распаковывается, но остаётся холодной.
+     * Для обходов и внутренних проверок.
+     */
+    PlayerStats get(UUID uuid) {
+        return uuid == null ? null : row(rows.get(uuid));
+    }
+
+    /**
+     * Строка для запроса одного игрока: отмечает обращение, холодную строку возвращает
+     * в горячий ярус.
+     */
+    PlayerStats acquire(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        Object value = rows.get(uuid);
+        if (value == null) {
+            return null;
+        }
+        lastAccess.put(uuid, System.currentTimeMillis());
+        if (value instanceof PlayerStats row) {
+            return row;
+        }
+        byte[] compact = (byte[]) value;
+        PlayerStats row = PlayerStats.expand(compact);
+        // Строку могли заменить параллельно: тогда в хранилище уже новая горячая строка
+        if (rows.replace(uuid, compact, row)) {
+            coldBytes.addAndGet(-PlayerStats.compactBytes(compact));
+            coldRows.decrementAndGet();
+            hotBytes.addAndGet(row.estimateBytes());
+            promotions.incrementAndGet();
+        }
+        return row;
+    }
+
+    /**
+     * Сохраняет строку игрока (в горячий ярус) и возвращает предыдущую (или null).
+     */
+    PlayerStats put(UUID uuid, PlayerStats stats) {
+        Object previous = rows.put(uuid, stats);
+        hotBytes.addAndGet(stats.estimateBytes());
+        entries.addAndGet(stats.size());
+        jsonTreeBytes.addAndGet(stats.estimateJsonTreeBytes(columns));
+        if (previous == null) {
+            sortedIds.add(uuid);
+        }
+        return release(previous);
+    }
+
+    PlayerStats remove(UUID uuid) {
+        Object previous = rows.remove(uuid);
+        if (previous != null) {
+            sortedIds.remove(uuid);
+            lastAccess.remove(uuid);
+        }
+        return release(previous);
+    }
+
+    boolean contains(UUID uuid) {
+        return rows.containsKey(uuid);
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    Set<UUID> uuids() {
+        return rows.keySet();
+    }
+
+    /**
+     * UUID игроков по возрастанию строкового вида, строго после {@code after} (или с начала).
+     * Живое представление: изменения хранилища видны во время обхода.
+     */
+    NavigableSet<UUID> sortedUuidsAfter(UUID after) {
+        return after == null ? sortedIds : sortedIds.tailSet(after, false);
+    }
+
+    /**
+     * Обход всех строк; холодные распаковываются на время вызова и остаются холодными.
+     * Для построения индексов по одной колонке — {@link #forEachValue}.
+     */
+    void forEach(BiConsumer<UUID, PlayerStats> action) {
+        rows.forEach((uuid, value) -> action.accept(uuid, row(value)));
+    }
+
+    /**
+     * Значение одной колонки у каждого игрока (0, если её нет). Холодные строки
+     * читаются прямо из компактного вида, без распаковки.
+     */
+    void forEachValue(int column, ObjIntConsumer<UUID> action) {
+        rows.forEach((uuid, value) -> action.accept(uuid, value instanceof byte[] compact
+                ? PlayerStats.compactGet(compact, column)
+                : ((PlayerStats) value).get(column)));
+    }
+
+    /**
+     * Обход хранимых значений без распаковки — для долгих обходов, которые сначала фиксируют
+     * набор строк (пересчёт рейтингов, запись снимка): строка распаковывается через
+     * {@link #row(Object)} только в момент обработки, и холодный ярус не разворачивается целиком.
+     */
+    void forEachStored(BiConsumer<UUID, Object> action) {
+        rows.forEach(action);
+    }
+
+    /**
+     * Строка из значения {@link #forEachStored}.
+     */
+    static PlayerStats row(Object stored) {
+        return stored instanceof byte[] compact ? PlayerStats.expand(compact) : (PlayerStats) stored;
+    }
+
+    /**
+     * true, если горячий ярус превысил бюджет и пора вызвать {@link #trim}.
+     */
+    boolean overBudget() {
+        return hotBudgetBytes > 0 && hotBytes.get() > hotBudgetBytes;
+    }
+
+    /**
+     * Переводит горячие строки в холодный ярус, начиная с давно не запрошенных, пока ярус
+     * не опустится ниже бюджета. Закреплённые строки (онлайн игроки) не трогаются.
+     * Параллельный вызов, пока идёт предыдущий, ничего не делает.
+     * @return сколько строк переведено
+     */
+    int trim(Predicate<UUID> pinned) {
+        if (!overBudget() || !trimming.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            List<UUID> candidates = new ArrayList<>();
+            rows.forEach((uuid, value) -> {
+                if (value instanceof PlayerStats && !pinned.test(uuid)) {
+                    candidates.add(uuid);
+                }
+            });
+            // Время обращения фиксируется до сортировки: параллельные запросы не ломают порядок
+            Map<UUID, Long> order = new HashMap<>(candidates.size() * 2);
+            for (UUID uuid : candidates) {
+                order.put(uuid, lastAccess.getOrDefault(uuid, 0L));
+            }
+            candidates.sort(Comparator.comparingLong(order::get));
+
+            long target = (long) (hotBudgetBytes * TRIM_TARGET);
+            int demoted = 0;
+            for (UUID uuid : candidates) {
+                if (hotBytes.get() <= target) {
+                    break;
+                }
+                if (rows.get(uuid) instanceof PlayerStats row) {
+                    byte[] compact = row.compact();
+                    // Строку могли заменить или запросить параллельно: тогда она остаётся как есть
+                    if (rows.replace(uuid, row, compact)) {
+                        hotBytes.addAndGet(-row.estimateBytes());
+                        coldBytes.addAndGet(PlayerStats.compactBytes(compact));
+                        coldRows.incrementAndGet();
+                        lastAccess.remove(uuid);
+                        demoted++;
+                    }
+                }
+            }
+            demotions.addAndGet(demoted);
+            return demoted;
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    int coldSize() {
+        return coldRows.get();
+    }
+
+    long hotBytes() {
+        return hotBytes.get();
+    }
+
+    long coldBytes() {
+        return coldBytes.get();
+    }
+
+    long demotions() {
+        return demotions.get();
+    }
+
+    long promotions() {
+        return promotions.get();
+    }
+
+    /**
+     * Значение по ключу API: {@code section/key} или ключ без раздела. Ключ без раздела
+     * разрешается одинаково для всех игроков — в первый раздел из
+     * {@link StatColumns#SEARCH_SECTIONS}, где он есть на сервере, — поэтому топ
+     * по неоднозначному ключу не смешивает, например, mined и crafted.
+     */
+    int getAnyStat(PlayerStats row, String statKey) {
+        if (row == null || statKey == null) {
+            return 0;
+        }
+        int[] resolved = columns.resolve(statKey);
+        return resolved.length == 0 ? 0 : row.get(resolved[0]);
+    }
+
+    /**
+     * Порядок UUID.toString(): шестнадцатеричные цифры фиксированной длины,
+     * то есть беззнаковое сравнение старших, затем младших 64 бит.
+     */
+    static int compareAsString(UUID a, UUID b) {
+        int cmp = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return cmp != 0 ? cmp : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    /**
+     * Оценка занимаемой памяти (строки + реестр колонок), без сравнения с деревом JSON.
+     */
+    long estimateBytes() {
+        return hotBytes.get() + coldBytes.get() + columns.estimateBytes();
+    }
+
+    /**
+     * Отчёт о памяти: колоночное хранилище против оценки прежнего кэша из JsonObject.
+     * Собирается из счётчиков, без обхода строк.
+     */
+    JsonObject memoryReport() {
+        long rowBytes = hotBytes.get() + coldBytes.get();
+        long treeBytes = jsonTreeBytes.get();
+        long registryBytes = columns.estimateBytes();
+
+        JsonObject report = new JsonObject();
+        report.addProperty("players", rows.size());
+        report.addProperty("columns", columns.size());
+        report.addProperty("entries", entries.get());
+        report.addProperty("columnar_bytes", rowBytes + registryBytes);
+        report.addProperty("registry_bytes", registryBytes);
+        report.addProperty("json_tree_estimated_bytes", treeBytes);
+        report.addProperty("cold_players", coldRows.get());
+        report.addProperty("hot_bytes", hotBytes.get());
+        report.addProperty("cold_bytes", coldBytes.get());
+        report.addProperty("hot_budget_bytes", hotBudgetBytes);
+        if (rowBytes + registryBytes > 0) {
+            report.addProperty("ratio", Math.round(100.0 * treeBytes / (rowBytes + registryBytes)) / 100.0);
+        }
+        return report;
+    }
+
+    // Снимает удалённое или заменённое значение с учёта яруса и отчёта о памяти
+    private PlayerStats release(Object previous) {
+        if (previous == null) {
+            return null;
+        }
+        PlayerStats row = row(previous);
+        if (previous instanceof byte[] compact) {
+            coldBytes.addAndGet(-PlayerStats.compactBytes(compact));
+            coldRows.decrementAndGet();
+        } else {
+            hotBytes.addAndGet(-row.estimateBytes());
+        }
+        entries.addAndGet(-row.size());
+        jsonTreeBytes.addAndGet(-row.estimateJsonTreeBytes(columns));
+        return row;
+    }
+}
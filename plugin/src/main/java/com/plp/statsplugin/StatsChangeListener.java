@@ -0,0 +1,16 @@
+package com.plp.statsplugin;
+
+import java.util.UUID;
+
+/**
+ * Подписчик на замену статистики игрока в {@link StatStore}.
+ * Вызывается из потока загрузки сразу после записи в хранилище, поэтому должен работать быстро.
+ */
+interface StatsChangeListener {
+
+    /**
+     * @param previous прежняя строка или null, если игрока не было в кэше
+     * @param current  новая строка или null, если игрок удалён из кэша
+     */
+    void onStatsChanged(UUID uuid, PlayerStats previous, PlayerStats current);
+}
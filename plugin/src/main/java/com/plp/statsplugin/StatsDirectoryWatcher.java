@@ -0,0 +1,226 @@
+package com.plp.statsplugin;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Следит за каталогом stats/ и сообщает, какие файлы игроков изменились.
+ * События ENTRY_CREATE/ENTRY_MODIFY/ENTRY_DELETE собираются по UUID и отдаются пачкой,
+ * когда файл затих на debounce-время. Если WatchService недоступен (например, сетевой диск)
+ * или включён принудительно, каталог периодически сканируется по mtime и размеру.
+ */
+final class StatsDirectoryWatcher {
+
+    private static final String SUFFIX = ".json";
+
+    private final Path directory;
+    private final Logger logger;
+    private final long debounceMillis;
+    private final long scanIntervalMillis;
+    private final boolean forceScan;
+    private final Consumer<Set<UUID>> onChanged;
+
+    private volatile boolean running;
+    private Thread thread;
+    private WatchService watchService;
+
+    StatsDirectoryWatcher(Path directory, Logger logger, long debounceMillis, long scanIntervalMillis,
+                          boolean forceScan, Consumer<Set<UUID>> onChanged) {
+        this.directory = directory;
+        this.logger = logger;
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.scanIntervalMillis = Math.max(1000, scanIntervalMillis);
+        this.forceScan = forceScan;
+        this.onChanged = onChanged;
+    }
+
+    void start() {
+        Runnable loop;
+        if (!forceScan && openWatchService()) {
+            loop = this::watchLoop;
+            logger.info("[StatsPlugin] Отслеживание stats каталога через WatchService: " + directory);
+        } else {
+            loop = this::scanLoop;
+            logger.info("[StatsPlugin] Отслеживание stats каталога сканированием каждые "
+                    + scanIntervalMillis / 1000 + " с: " + directory);
+        }
+
+        running = true;
+        thread = new Thread(loop, "StatsPlugin-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private boolean openWatchService() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.log(Level.WARNING, "[StatsPlugin] WatchService недоступен, использую сканирование: " + e.getMessage());
+            watchService = null;
+            return false;
+        }
+    }
+
+    // ============================
+    // WatchService
+    // ============================
+    private void watchLoop() {
+        // uuid -> время последнего события
+        Map<UUID, Long> pending = new HashMap<>();
+
+        while (running) {
+            WatchKey key;
+            try {
+                long timeout = pending.isEmpty() ? 1000 : Math.max(1, debounceMillis);
+                key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+
+            long now = System.currentTimeMillis();
+            if (key != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Потеряли события — перечитываем весь каталог
+                        for (UUID uuid : listDirectory().keySet()) {
+                            pending.put(uuid, now);
+                        }
+                        continue;
+                    }
+                    UUID uuid = parseUuid(event.context().toString());
+                    if (uuid != null) {
+                        pending.put(uuid, now);
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warning("[StatsPlugin] stats каталог больше недоступен для WatchService, перехожу на сканирование.");
+                    scanLoop();
+                    return;
+                }
+            }
+
+            Set<UUID> due = new HashSet<>();
+            Iterator<Map.Entry<UUID, Long>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<UUID, Long> entry = it.next();
+                if (now - entry.getValue() >= debounceMillis) {
+                    due.add(entry.getKey());
+                    it.remove();
+                }
+            }
+            dispatch(due);
+        }
+    }
+
+    // ============================
+    // Сканирование (fallback)
+    // ============================
+    private void scanLoop() {
+        Map<UUID, StatsUtil.FileStamp> known = listDirectory();
+
+        while (running) {
+            try {
+                Thread.sleep(scanIntervalMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            Map<UUID, StatsUtil.FileStamp> current = listDirectory();
+            Set<UUID> changed = new HashSet<>();
+            current.forEach((uuid, stamp) -> {
+                if (!stamp.equals(known.get(uuid))) {
+                    changed.add(uuid);
+                }
+            });
+            for (UUID uuid : known.keySet()) {
+                if (!current.containsKey(uuid)) {
+                    changed.add(uuid);
+                }
+            }
+
+            known.clear();
+            known.putAll(current);
+            dispatch(changed);
+        }
+    }
+
+    private Map<UUID, StatsUtil.FileStamp> listDirectory() {
+        Map<UUID, StatsUtil.FileStamp> result = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                UUID uuid = parseUuid(file.getFileName().toString());
+                if (uuid == null) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    result.put(uuid, new StatsUtil.FileStamp(attrs.lastModifiedTime().toMillis(), attrs.size()));
+                } catch (IOException ignored) {
+                    // файл удалили между листингом и чтением атрибутов
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "[StatsPlugin] Ошибка сканирования stats каталога: " + e.getMessage());
+        }
+        return result;
+    }
+
+    private void dispatch(Set<UUID> uuids) {
+        if (uuids.isEmpty()) {
+            return;
+        }
+        try {
+            onChanged.accept(uuids);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "[StatsPlugin] Ошибка обработки изменений stats каталога", e);
+        }
+    }
+
+    private static UUID parseUuid(String fileName) {
+        if (!fileName.endsWith(SUFFIX)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(fileName.substring(0, fileName.length() - SUFFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,926 @@
+package com.plp.statsplugin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+
+public class StatsManager implements Listener {
+
+    private final StatsPlugin plugin;
+
+    // Основной кэш статистики (колоночный)
+    private final StatStore store;
+    private final List<StatsChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Leaderboards leaderboards;
+    private final ServerAggregates aggregates;
+    private final CompositeScores scores;
+    private final Distributions distributions;
+    private final StatsStream stream;
+    // Планировщик обновления онлайн игроков (null до startRefreshScheduler)
+    private volatile RefreshScheduler refreshScheduler;
+    // Журнал истории изменений (null, если выключен)
+    private final HistoryLog history;
+
+    // Метрики для /moss/metrics
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final MetricsRegistry.Histogram mainThreadOnline;
+    private final MetricsRegistry.Histogram mainThreadJoinQuit;
+
+    // Версия данных: растёт при каждом реальном изменении статистики, имён или онлайна
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    // Состояние предзагрузки: пока true, кэш заполнен не полностью
+    private volatile boolean warming;
+    private volatile int preloadTotal;
+    private final AtomicInteger preloadDone = new AtomicInteger();
+
+    // Снимок: версия данных последней записи и время последней попытки
+    private volatile long lastSnapshotVersion = -1;
+    private volatile long lastSnapshotTime = System.currentTimeMillis();
+
+    // Счётчики загрузчика: разобранные файлы и пропущенные без изменений
+    private final AtomicLong parsedFiles = new AtomicLong();
+    private final AtomicLong skippedFiles = new AtomicLong();
+    // Запросы, присоединившиеся к уже идущей загрузке, и отклонённые устаревшие записи
+    private final AtomicLong coalescedLoads = new AtomicLong();
+    private final AtomicLong staleWrites = new AtomicLong();
+
+    // Загрузки в процессе: повторный запрос того же UUID ждёт текущую вместо второго разбора
+    private final ConcurrentMap<UUID, Flight> inFlight = new ConcurrentHashMap<>();
+    // Запись строки и оповещение подписчиков атомарны для одного UUID
+    private final Object[] writeLocks = new Object[64];
+    // Имена в нижнем регистре в алфавитном порядке: точный поиск и поиск по префиксу (/moss/search)
+    private final ConcurrentNavigableMap<String, UUID> nameToUuid = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<UUID, String> uuidToName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Boolean> onlinePlayers = new ConcurrentHashMap<>();
+
+    public StatsManager(StatsPlugin plugin) {
+        this.plugin = plugin;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+        this.store = new StatStore(Math.max(0, plugin.getConfig().getLong("cache.max-hot-mb", 256)) * 1024 * 1024);
+
+        long idleMinutes = Math.max(1, plugin.getConfig().getLong("leaderboards.idle-minutes", 30));
+        int maxIndexes = plugin.getConfig().getInt("leaderboards.max-indexes", 64);
+        this.leaderboards = new Leaderboards(store, idleMinutes * 60_000L, maxIndexes);
+        listeners.add(leaderboards);
+
+        this.aggregates = new ServerAggregates(store.columns(), loadSummaryTotals());
+        listeners.add(aggregates);
+
+        int scoreThreads = plugin.getConfig().getInt("scores.parallelism", 0);
+        if (scoreThreads <= 0) {
+            scoreThreads = Runtime.getRuntime().availableProcessors();
+        }
+        this.scores = new CompositeScores(store, loadScoreDefinitions(), scoreThreads,
+                plugin.getConfig().getInt("web.max-top-results", 20));
+        listeners.add(scores);
+
+        double accuracy = plugin.getConfig().getDouble("distribution.relative-accuracy", 0.01);
+        if (accuracy <= 0 || accuracy >= 0.5) {
+            plugin.getLogger().warning("[StatsPlugin] distribution.relative-accuracy должен быть в (0, 0.5), используется 0.01");
+            accuracy = 0.01;
+        }
+        long sketchIdleMinutes = Math.max(1, plugin.getConfig().getLong("distribution.idle-minutes", 30));
+        this.distributions = new Distributions(store, accuracy, sketchIdleMinutes * 60_000L,
+                plugin.getConfig().getInt("distribution.max-sketches", 64));
+        listeners.add(distributions);
+
+        this.stream = new StatsStream(dataVersion::get,
+                plugin.getConfig().getInt("stream.max-subscribers", 32),
+                plugin.getConfig().getInt("stream.buffer-events", 256));
+        listeners.add(stream);
+
+        this.history = createHistoryLog();
+        if (history != null) {
+            listeners.add(history);
+        }
+
+        this.mainThreadOnline = metrics.histogram("moss_main_thread_duration_seconds",
+                "Time spent on the Bukkit main thread", MetricsRegistry.LATENCY_BUCKETS, "task", "sync_online");
+        this.mainThreadJoinQuit = metrics.histogram("moss_main_thread_duration_seconds",
+                "Time spent on the Bukkit main thread", MetricsRegistry.LATENCY_BUCKETS, "task", "join_quit");
+        registerMetrics();
+    }
+
+    // ============================
+    // ASYNC ПРЕДЗАГРУЗКА ВСЕХ СТАТИСТИК
+    // ============================
+    public void preloadAllStatsAsync() {
+        Set<UUID> uuids = new LinkedHashSet<>();
+        for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
+            if (player == null || player.getUniqueId() == null) {
+                continue;
+            }
+            uuids.add(player.getUniqueId());
+            cacheName(player.getUniqueId(), player.getName());
+        }
+
+        warming = true;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            // Сначала снимок: API сразу отдаёт данные, а файлы перечитываются только при смене mtime/размера
+            loadSnapshot();
+            uuids.addAll(store.uuids());
+
+            if (uuids.isEmpty()) {
+                plugin.getLogger().info("[StatsPlugin] Нет оффлайн игроков для загрузки.");
+                warming = false;
+                dataVersion.incrementAndGet();
+                return;
+            }
+
+            int parallelism = plugin.getConfig().getInt("preload.parallelism", 0);
+            if (parallelism <= 0) {
+                parallelism = Runtime.getRuntime().availableProcessors();
+            }
+            int threads = Math.min(parallelism, uuids.size());
+
+            preloadTotal = uuids.size();
+            preloadDone.set(0);
+
+            plugin.getLogger().info("[StatsPlugin] Загружаю статистику оффлайн игроков: " + uuids.size() + " (потоков: " + threads + ")");
+            preloadParallel(new ArrayList<>(uuids), threads);
+        });
+    }
+
+    /**
+     * Раздаёт файлы по ограниченному пулу: каждый поток берёт следующий индекс из общего счётчика.
+     * Вызывающий поток ждёт завершения и пишет прогресс в файлах в секунду.
+     */
+    private void preloadParallel(List<UUID> uuids, int threads) {
+        long startNanos = System.nanoTime();
+        long start = System.currentTimeMillis();
+        long progressMillis = Math.max(1, plugin.getConfig().getLong("preload.progress-seconds", 5)) * 1000L;
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger threadIds = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "StatsPlugin-Preload-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (int i = 0; i < threads; i++) {
+                pool.execute(() -> {
+                    int index;
+                    while ((index = cursor.getAndIncrement()) < uuids.size()) {
+                        try {
+                            if (reload(uuids.get(index))) {
+                                loaded.incrementAndGet();
+                            }
+                        } finally {
+                            preloadDone.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+
+            int lastDone = 0;
+            long lastTime = start;
+            while (!pool.awaitTermination(progressMillis, TimeUnit.MILLISECONDS)) {
+                long now = System.currentTimeMillis();
+                int done = preloadDone.get();
+                long rate = (done - lastDone) * 1000L / Math.max(1, now - lastTime);
+                plugin.getLogger().info("[StatsPlugin] Предзагрузка: " + done + "/" + uuids.size() + " файлов, " + rate + " файлов/с");
+                lastDone = done;
+                lastTime = now;
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            warming = false;
+            dataVersion.incrementAndGet();
+            recordRefresh("preload", uuids.size(), startNanos);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        long rate = uuids.size() * 1000L / Math.max(1, elapsed);
+        plugin.getLogger().info("[StatsPlugin] Загружено " + loaded.get() + " статистик (оффлайн) за " + elapsed + " ms (" + rate + " файлов/с)");
+        plugin.getLogger().info("[StatsPlugin] Память кэша: " + store.memoryReport());
+    }
+
+    // ============================
+    // Чтение статистики
+    // ============================
+    public Integer getStat(UUID uuid, String statKey) {
+        PlayerStats row = store.acquire(uuid);
+        if (row == null) return 0;
+
+        return store.getAnyStat(row, StatColumns.canonicalKey(statKey));
+    }
+
+    /**
+     * Полные ключи {@code section/key}, в которые разрешается ключ API; первый — тот,
+     * что используется. Больше одного — ключ без раздела неоднозначен.
+     */
+    public List<String> resolveStatKey(String statKey) {
+        StatColumns columns = store.columns();
+        List<String> resolved = new ArrayList<>();
+        for (int column : columns.resolve(StatColumns.canonicalKey(statKey))) {
+            resolved.add(columns.section(column) + "/" + columns.key(column));
+        }
+        return resolved;
+    }
+
+    /**
+     * Первые {@code limit} игроков по ключу статистики из инкрементального индекса.
+     */
+    List<RankIndex.Entry> getTop(String statKey, int limit) {
+        return leaderboards.top(statKey, limit);
+    }
+
+    /**
+     * Место игрока по ключу статистики или null, если игрока нет в кэше.
+     */
+    RankIndex.Rank getRank(String statKey, UUID uuid) {
+        return leaderboards.rank(statKey, uuid);
+    }
+
+    /**
+     * Рассылка изменений для /moss/stream.
+     */
+    StatsStream getStream() {
+        return stream;
+    }
+
+    /**
+     * Скетч распределения значений ключа по всем игрокам кэша или null, если ключ не встречался.
+     */
+    DistributionSketch getDistribution(String statKey) {
+        return distributions.sketch(statKey);
+    }
+
+    /**
+     * Первые {@code limit} игроков составного рейтинга или null, если рейтинга с таким именем нет.
+     */
+    List<CompositeScores.Entry> getScoreTop(String name, int limit) {
+        return scores.top(name, limit);
+    }
+
+    /**
+     * Серверные суммы из config.yml (summary.totals), поддерживаются инкрементально.
+     */
+    public JsonObject getSummaryTotals() {
+        return aggregates.toJson();
+    }
+
+    public JsonObject getFullStats(UUID uuid) {
+        PlayerStats row = store.acquire(uuid);
+        if (row == null) {
+            return new JsonObject();
+        }
+        return row.toJson(store.columns());
+    }
+
+    // ============================
+    // Ручное обновление одного игрока
+    // ============================
+    public void updatePlayer(Player p) {
+        if (p == null || p.getUniqueId() == null) {
+            return;
+        }
+        RefreshScheduler scheduler = refreshScheduler;
+        if (scheduler != null) {
+            scheduler.requestNow(p.getUniqueId());
+        } else {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> reload(p.getUniqueId()));
+        }
+    }
+
+    // ============================
+    // Плановое обновление ONLINE игроков
+    // ============================
+
+    /**
+     * Запускает планировщик обновления (async, раз в {@code refresh.tick-seconds}).
+     * @param intervalMillis за сколько обходится весь онлайн; 0 — только вход/выход/ручные обновления
+     */
+    public void startRefreshScheduler(long intervalMillis) {
+        long tickSeconds = Math.max(1, plugin.getConfig().getLong("refresh.tick-seconds", 1));
+        RefreshScheduler scheduler = new RefreshScheduler(onlinePlayers::keySet, this::reload,
+                intervalMillis, tickSeconds * 1000L, plugin.getConfig().getInt("refresh.max-urgent-per-tick", 50));
+        listeners.add(scheduler);
+        metrics.gauge("moss_refresh_pending", "Players waiting for a scheduled refresh", scheduler::pending);
+        refreshScheduler = scheduler;
+
+        // Онлайн до включения плагина (/reload): событий входа для них не было
+        Bukkit.getScheduler().runTask(plugin, this::syncOnlinePlayers);
+        Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+            long startNanos = System.nanoTime();
+            int files = scheduler.tick();
+            if (files > 0) {
+                recordRefresh("online", files, startNanos);
+            }
+        }, 20L * tickSeconds, 20L * tickSeconds);
+    }
+
+    /**
+     * Сверяет список онлайн игроков с сервером (главный поток, один раз при запуске).
+     * Дальше список поддерживают события входа и выхода.
+     */
+    private void syncOnlinePlayers() {
+        long startNanos = System.nanoTime();
+        List<Player> onlineSnapshot = new ArrayList<>(Bukkit.getOnlinePlayers());
+        Set<UUID> before = new HashSet<>(onlinePlayers.keySet());
+        onlinePlayers.clear();
+        for (Player player : onlineSnapshot) {
+            onlinePlayers.put(player.getUniqueId(), Boolean.TRUE);
+            cacheName(player.getUniqueId(), player.getName());
+        }
+        if (!before.equals(onlinePlayers.keySet())) {
+            dataVersion.incrementAndGet();
+        }
+        mainThreadOnline.observeNanos(System.nanoTime() - startNanos);
+    }
+
+    // ============================
+    // Изменения файлов в stats каталоге (от StatsDirectoryWatcher)
+    // ============================
+    public void reloadChanged(Set<UUID> uuids) {
+        List<UUID> batch = new ArrayList<>(uuids);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            long startNanos = System.nanoTime();
+            int loaded = 0;
+            for (UUID uuid : batch) {
+                if (!uuidToName.containsKey(uuid)) {
+                    OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+                    cacheName(uuid, player != null ? player.getName() : null);
+                }
+                if (reload(uuid)) {
+                    loaded++;
+                }
+            }
+            recordRefresh("watch", batch.size(), startNanos);
+            plugin.getLogger().fine("[StatsPlugin] Изменённые файлы статистики: " + batch.size() + ", загружено " + loaded);
+        });
+    }
+
+    // ============================
+    // Периодическое обслуживание (async)
+    // ============================
+    public void runMaintenance() {
+        leaderboards.evictIdle();
+        distributions.evictIdle();
+        trimCache();
+
+        long intervalMillis = plugin.getConfig().getLong("snapshot.interval-minutes", 10) * 60_000L;
+        if (intervalMillis > 0 && System.currentTimeMillis() - lastSnapshotTime >= intervalMillis) {
+            writeSnapshot();
+        }
+
+        if (history != null) {
+            history.compact();
+        }
+    }
+
+    /**
+     * Вызывается из onDisable: сохраняет снимок кэша для быстрого следующего старта.
+     */
+    public void shutdown() {
+        stream.closeAll();
+        scores.shutdown();
+        writeSnapshot();
+        if (history != null) {
+            history.close();
+        }
+    }
+
+    // ============================
+    // История изменений (history/)
+    // ============================
+    private HistoryLog createHistoryLog() {
+        if (!plugin.getConfig().getBoolean("history.enabled", true)) {
+            return null;
+        }
+        long hourlyAfter = plugin.getConfig().getLong("history.hourly-after-hours", 24) * 3_600_000L;
+        long dailyAfter = plugin.getConfig().getLong("history.daily-after-days", 7) * 86_400_000L;
+        int queueCapacity = plugin.getConfig().getInt("history.queue-capacity", 100_000);
+        HistoryLog log = new HistoryLog(plugin.getDataFolder().toPath().resolve("history"), store.columns(),
+                plugin.getLogger(), hourlyAfter, dailyAfter, queueCapacity);
+        try {
+            log.start();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("[StatsPlugin] Не удалось открыть журнал истории: " + e.getMessage());
+            log.close();
+            return null;
+        }
+    }
+
+    public boolean isHistoryEnabled() {
+        return history != null;
+    }
+
+    /**
+     * История значения статистики игрока за [from, to] (мс эпохи).
+     * Ключ — {@code section/key} или ключ без раздела, разрешённый так же, как в топах и /moss/rank.
+     */
+    public JsonObject getHistory(UUID uuid, String statKey, long from, long to, int maxPoints) throws IOException {
+        String section = StatColumns.SEARCH_SECTIONS[0];
+        if (StatColumns.isQualified(statKey)) {
+            int slash = statKey.indexOf('/');
+            section = statKey.substring(0, slash);
+            statKey = statKey.substring(slash + 1);
+        } else {
+            int[] resolved = store.columns().resolve(statKey);
+            if (resolved.length > 0) {
+                section = store.columns().section(resolved[0]);
+            }
+        }
+
+        JsonArray points = new JsonArray();
+        for (HistoryLog.Point point : history.query(uuid, section, statKey, from, to, maxPoints)) {
+            JsonObject o = new JsonObject();
+            o.addProperty("t", point.timestamp());
+            o.addProperty("v", point.value());
+            points.add(o);
+        }
+
+        JsonObject out = new JsonObject();
+        out.addProperty("uuid", uuid.toString());
+        out.addProperty("stat_key", statKey);
+        out.addProperty("section", section);
+        out.addProperty("from", from);
+        out.addProperty("to", to);
+        out.add("points", points);
+        return out;
+    }
+
+    // ============================
+    // Снимок кэша (stats-cache.bin)
+    // ============================
+    private void loadSnapshot() {
+        if (!isSnapshotEnabled()) {
+            return;
+        }
+        File folder = StatsUtil.getConfiguredStatsFolder();
+        if (folder == null) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            StatsSnapshot.Info info = StatsSnapshot.read(snapshotFile(), folder.getAbsolutePath(), store.columns(),
+                    this::storeSnapshotStats,
+                    (uuid, name) -> {
+                        if (!uuidToName.containsKey(uuid)) {
+                            cacheName(uuid, name);
+                        }
+                    });
+            if (info != null) {
+                lastSnapshotVersion = dataVersion.get();
+                plugin.getLogger().info("[StatsPlugin] Загружен снимок кэша: " + info.rows() + " игроков за "
+                        + (System.currentTimeMillis() - start) + " ms");
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("[StatsPlugin] Не удалось прочитать снимок кэша, читаю все файлы: " + e.getMessage());
+        }
+    }
+
+    private synchronized void writeSnapshot() {
+        lastSnapshotTime = System.currentTimeMillis();
+        if (!isSnapshotEnabled() || warming) {
+            return;
+        }
+        File folder = StatsUtil.getConfiguredStatsFolder();
+        long version = dataVersion.get();
+        if (folder == null || version == lastSnapshotVersion) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(snapshotFile().getParent());
+            StatsSnapshot.write(snapshotFile(), folder.getAbsolutePath(), store, uuidToName);
+            lastSnapshotVersion = version;
+            plugin.getLogger().fine("[StatsPlugin] Снимок кэша записан за " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            plugin.getLogger().warning("[StatsPlugin] Не удалось записать снимок кэша: " + e.getMessage());
+        }
+    }
+
+    private boolean isSnapshotEnabled() {
+        return plugin.getConfig().getBoolean("snapshot.enabled", true);
+    }
+
+    private Path snapshotFile() {
+        return plugin.getDataFolder().toPath().resolve("stats-cache.bin");
+    }
+
+    // ============================
+    // EVENTS
+    // ============================
+    @EventHandler
+    public void onJoin(PlayerJoinEvent e) {
+        long startNanos = System.nanoTime();
+        Player player = e.getPlayer();
+        if (onlinePlayers.put(player.getUniqueId(), Boolean.TRUE) == null) {
+            dataVersion.incrementAndGet();
+        }
+        cacheName(player.getUniqueId(), player.getName());
+        updatePlayer(player);
+        mainThreadJoinQuit.observeNanos(System.nanoTime() - startNanos);
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent e) {
+        long startNanos = System.nanoTime();
+        Player player = e.getPlayer();
+        if (onlinePlayers.remove(player.getUniqueId()) != null) {
+            dataVersion.incrementAndGet();
+        }
+        cacheName(player.getUniqueId(), player.getName());
+        updatePlayer(player);
+        mainThreadJoinQuit.observeNanos(System.nanoTime() - startNanos);
+    }
+
+    // ============================
+    // API UTIL METHODS
+    // ============================
+
+    StatStore getStore() {
+        return store;
+    }
+
+    public int getCachedPlayerCount() {
+        return store.size();
+    }
+
+    public JsonObject getMemoryReport() {
+        return store.memoryReport();
+    }
+
+    /**
+     * Версия данных для кэша ответов и ETag: меняется при любом видимом в API изменении.
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * true, пока идёт предзагрузка и кэш ещё не отражает всех игроков.
+     */
+    public boolean isWarming() {
+        return warming;
+    }
+
+    public JsonObject getLoaderReport() {
+        JsonObject report = new JsonObject();
+        report.addProperty("parsed", parsedFiles.get());
+        report.addProperty("skipped_unchanged", skippedFiles.get());
+        report.addProperty("coalesced", coalescedLoads.get());
+        report.addProperty("stale_rejected", staleWrites.get());
+        if (history != null) {
+            report.addProperty("history_records", history.writtenRecords());
+            report.addProperty("history_dropped", history.droppedRecords());
+        }
+        if (warming) {
+            report.addProperty("preload_done", preloadDone.get());
+            report.addProperty("preload_total", preloadTotal);
+        }
+        return report;
+    }
+
+    public UUID getUUID(String name) {
+        if (name == null) {
+            return null;
+        }
+        return nameToUuid.get(name.toLowerCase());
+    }
+
+    /**
+     * UUID игроков, чьё имя начинается с {@code prefix} (без учёта регистра), по алфавиту.
+     * Обходит только нужный диапазон отсортированного индекса имён — O(log n + limit).
+     */
+    public List<UUID> searchNames(String prefix, int limit) {
+        List<UUID> result = new ArrayList<>(Math.min(limit, 64));
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return result;
+        }
+        String lower = prefix.toLowerCase();
+        for (UUID uuid : nameToUuid.subMap(lower, true, lower + Character.MAX_VALUE, false).values()) {
+            result.add(uuid);
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public boolean isOnline(UUID uuid) {
+        return uuid != null && onlinePlayers.containsKey(uuid);
+    }
+
+    public String getPlayerName(UUID uuid) {
+        if (uuid == null) {
+            return "Unknown";
+        }
+        return uuidToName.getOrDefault(uuid, "Unknown");
+    }
+
+    public List<UUID> getOnlinePlayerIds() {
+        return new ArrayList<>(onlinePlayers.keySet());
+    }
+
+    public Set<UUID> getOnlinePlayerIdSet() {
+        return new HashSet<>(onlinePlayers.keySet());
+    }
+
+    /**
+     * Загрузка одного UUID. Запросы, пришедшие во время чтения, к ней присоединяются и помечают
+     * её для повтора: файл мог измениться после начала чтения, поэтому лидер перечитывает его
+     * ещё раз (если mtime и размер не изменились, это только stat файла).
+     */
+    private static final class Flight {
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        // Меняется только внутри inFlight.compute
+        boolean rerun;
+    }
+
+    /**
+     * Перечитывает файл игрока; одновременные вызовы для одного UUID разделяют одно чтение.
+     * @return true, если статистика найдена
+     */
+    private boolean reload(UUID uuid) {
+        Flight mine = new Flight();
+        Flight flight = inFlight.compute(uuid, (id, current) -> {
+            if (current == null) {
+                return mine;
+            }
+            current.rerun = true;
+            return current;
+        });
+        if (flight != mine) {
+            coalescedLoads.incrementAndGet();
+            return flight.result.join();
+        }
+
+        boolean found = false;
+        try {
+            do {
+                found = loadFile(uuid);
+            } while (inFlight.computeIfPresent(uuid, (id, current) -> {
+                if (!current.rerun) {
+                    return null;
+                }
+                current.rerun = false;
+                return current;
+            }) != null);
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(uuid, mine);
+            throw e;
+        } finally {
+            mine.result.complete(found);
+        }
+        return found;
+    }
+
+    /**
+     * Перечитывает файл игрока и кладёт результат в хранилище.
+     * Если mtime и размер файла совпадают с уже загруженными, разбор пропускается.
+     * @return true, если статистика найдена
+     */
+    private boolean loadFile(UUID uuid) {
+        StatsUtil.FileStamp stamp = StatsUtil.readStamp(uuid);
+        if (stamp == null) {
+            storeStats(uuid, null);
+            return false;
+        }
+
+        // Онлайн игрок, оставшийся в холодном ярусе с прошлого захода, возвращается в горячий
+        PlayerStats existing = onlinePlayers.containsKey(uuid) ? store.acquire(uuid) : store.get(uuid);
+        if (existing != null && existing.matches(stamp)) {
+            skippedFiles.incrementAndGet();
+            return true;
+        }
+
+        PlayerStats stats = StatsUtil.readStats(uuid, new PlayerStats.Builder(store.columns()).stamp(stamp));
+        parsedFiles.incrementAndGet();
+        if (stats != null) {
+            storeStats(uuid, stats);
+            return true;
+        }
+        storeStats(uuid, null);
+        return false;
+    }
+
+    /**
+     * Строка из снимка кладётся, только если игрока ещё нет в хранилище: снимок читается
+     * параллельно с входами и watcher, и его строка не должна затереть свежее чтение файла.
+     * Устаревшую строку, попавшую до чтения файла, исправит предзагрузка, которая идёт следом.
+     */
+    private void storeSnapshotStats(UUID uuid, PlayerStats stats) {
+        storeStats(uuid, stats, true);
+    }
+
+    private void storeStats(UUID uuid, PlayerStats stats) {
+        storeStats(uuid, stats, false);
+    }
+
+    /**
+     * Единственная точка записи в хранилище: заменяет строку игрока и оповещает подписчиков.
+     * Свежее чтение файла всегда побеждает, даже если mtime файла старше записанного
+     * (файл восстановлен из бэкапа с сохранением времени): чтения одного UUID
+     * и так упорядочены в {@link #reload}.
+     */
+    private void storeStats(UUID uuid, PlayerStats stats, boolean onlyIfAbsent) {
+        synchronized (writeLock(uuid)) {
+            if (onlyIfAbsent && store.get(uuid) != null) {
+                staleWrites.incrementAndGet();
+                return;
+            }
+
+            PlayerStats previous = stats != null ? store.put(uuid, stats) : store.remove(uuid);
+            if (previous == null && stats == null) {
+                return;
+            }
+            dataVersion.incrementAndGet();
+            // Под блокировкой UUID: подписчики получают изменения одного игрока строго по порядку
+            for (StatsChangeListener listener : listeners) {
+                listener.onStatsChanged(uuid, previous, stats);
+            }
+        }
+        // Вне блокировки UUID: при массовой загрузке горячий ярус ужимается по ходу, а не в конце
+        if (store.overBudget()) {
+            trimCache();
+        }
+    }
+
+    private Object writeLock(UUID uuid) {
+        return writeLocks[(uuid.hashCode() & 0x7fffffff) % writeLocks.length];
+    }
+
+    /**
+     * Переводит давно не запрошенных оффлайн игроков в холодный ярус, если горячий превысил
+     * cache.max-hot-mb. Онлайн игроки всегда остаются горячими.
+     */
+    private void trimCache() {
+        int demoted = store.trim(onlinePlayers::containsKey);
+        if (demoted > 0) {
+            plugin.getLogger().fine("[StatsPlugin] В холодный ярус переведено " + demoted + " игроков");
+        }
+    }
+
+    // ============================
+    // Метрики
+    // ============================
+    MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    private void recordRefresh(String source, int files, long startNanos) {
+        metrics.histogram("moss_refresh_duration_seconds", "Duration of a stats refresh pass",
+                MetricsRegistry.REFRESH_BUCKETS, "source", source).observeNanos(System.nanoTime() - startNanos);
+        metrics.counter("moss_refresh_files_total", "Stats files checked by refresh passes", "source", source).add(files);
+    }
+
+    private void registerMetrics() {
+        metrics.counterFunction("moss_stats_files_total", "Stats files parsed or skipped as unchanged",
+                parsedFiles::get, "result", "parsed");
+        metrics.counterFunction("moss_stats_files_total", "Stats files parsed or skipped as unchanged",
+                skippedFiles::get, "result", "skipped");
+        metrics.counterFunction("moss_stats_loads_coalesced_total", "Reload requests that joined an in-flight read of the same file",
+                coalescedLoads::get);
+        metrics.counterFunction("moss_stats_stale_writes_total", "Snapshot rows rejected because the player was already loaded from disk",
+                staleWrites::get);
+        metrics.counterFunction("moss_stats_parse_failures_total", "Stats files that failed to read or parse",
+                StatsUtil::getParseFailures);
+        metrics.gauge("moss_cache_players", "Players in the stats cache", store::size);
+        metrics.gauge("moss_cache_columns", "Interned stat keys", () -> store.columns().size());
+        metrics.gauge("moss_cache_estimated_bytes", "Estimated heap size of the stats cache", store::estimateBytes);
+        metrics.gauge("moss_cache_tier_players", "Players per cache tier", () -> store.size() - store.coldSize(), "tier", "hot");
+        metrics.gauge("moss_cache_tier_players", "Players per cache tier", store::coldSize, "tier", "cold");
+        metrics.gauge("moss_cache_tier_bytes", "Estimated heap size per cache tier", store::hotBytes, "tier", "hot");
+        metrics.gauge("moss_cache_tier_bytes", "Estimated heap size per cache tier", store::coldBytes, "tier", "cold");
+        metrics.counterFunction("moss_cache_tier_moves_total", "Rows moved between cache tiers",
+                store::demotions, "direction", "demote");
+        metrics.counterFunction("moss_cache_tier_moves_total", "Rows moved between cache tiers",
+                store::promotions, "direction", "promote");
+        metrics.gauge("moss_online_players", "Players currently online", onlinePlayers::size);
+        metrics.gauge("moss_data_version", "Current data version", dataVersion::get);
+        metrics.gauge("moss_warming", "1 while the initial preload is running", () -> warming ? 1 : 0);
+        metrics.gauge("moss_leaderboard_indexes", "Maintained leaderboard indexes", leaderboards::size);
+        metrics.gauge("moss_stream_subscribers", "Connected /moss/stream clients", stream::subscribers);
+        metrics.counterFunction("moss_stream_dropped_events_total", "Stream events dropped on full subscriber buffers",
+                stream::droppedEvents);
+        metrics.gauge("moss_distribution_sketches", "Maintained distribution sketches", distributions::size);
+        if (history != null) {
+            metrics.counterFunction("moss_history_records_total", "History records written", history::writtenRecords);
+            metrics.counterFunction("moss_history_dropped_total", "History records dropped on a full queue",
+                    history::droppedRecords);
+        }
+    }
+
+    private Map<String, StatSelector> loadSummaryTotals() {
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("summary.totals");
+        if (section == null) {
+            return ServerAggregates.defaults();
+        }
+
+        Map<String, StatSelector> totals = new LinkedHashMap<>();
+        for (String name : section.getKeys(false)) {
+            StatSelector selector = StatSelector.parse(section.getString(name));
+            if (selector == null) {
+                plugin.getLogger().warning("[StatsPlugin] Некорректная сумма summary.totals." + name
+                        + ": ожидается <section>/<key> или <section>/*");
+                continue;
+            }
+            totals.put(name, selector);
+        }
+        return totals;
+    }
+
+    private List<CompositeScores.Definition> loadScoreDefinitions() {
+        List<CompositeScores.Definition> definitions = new ArrayList<>();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("scores.definitions");
+        if (section == null) {
+            return definitions;
+        }
+
+        for (String name : section.getKeys(false)) {
+            if (!name.matches("[a-z0-9_\\-]+")) {
+                plugin.getLogger().warning("[StatsPlugin] Некорректное имя рейтинга scores.definitions." + name
+                        + ": допустимы a-z, 0-9, _ и -");
+                continue;
+            }
+            List<CompositeScores.Term> numerator = loadScoreTerms(section, name + ".terms");
+            List<CompositeScores.Term> denominator = loadScoreTerms(section, name + ".divide-by");
+            if (numerator == null || denominator == null || numerator.isEmpty()) {
+                plugin.getLogger().warning("[StatsPlugin] Рейтинг scores.definitions." + name
+                        + " пропущен: нужен непустой terms из <section>/<key>: <вес>");
+                continue;
+            }
+            definitions.add(new CompositeScores.Definition(name, numerator, denominator));
+        }
+        return definitions;
+    }
+
+    // null — если хотя бы одно слагаемое некорректно; пустой список — если раздела нет
+    private List<CompositeScores.Term> loadScoreTerms(ConfigurationSection parent, String path) {
+        List<CompositeScores.Term> terms = new ArrayList<>();
+        ConfigurationSection section = parent.getConfigurationSection(path);
+        if (section == null) {
+            return terms;
+        }
+        for (String key : section.getKeys(false)) {
+            StatSelector selector = StatSelector.parse(key);
+            if (selector == null || !(section.get(key) instanceof Number weight)) {
+                return null;
+            }
+            terms.add(new CompositeScores.Term(selector, weight.doubleValue()));
+        }
+        return terms;
+    }
+
+    private void cacheName(UUID uuid, String name) {
+        if (uuid == null || name == null || name.isBlank()) {
+            return;
+        }
+        String lower = name.toLowerCase();
+        String previous = uuidToName.put(uuid, name);
+        if (!name.equals(previous)) {
+            dataVersion.incrementAndGet();
+            // Смена ника: старое имя больше не должно находиться ни точным поиском, ни по префиксу
+            if (previous != null && !previous.equalsIgnoreCase(name)) {
+                nameToUuid.remove(previous.toLowerCase(), uuid);
+            }
+        }
+        nameToUuid.put(lower, uuid);
+    }
+}
@@ -16,6 +16,7 @@ public class StatsPlugin extends JavaPlugin {
 
     private StatsManager statsManager;
     private WebServer webServer;
+    private StatsDirectoryWatcher watcher;
 
     @Override
     public void onEnable() {
@@ -23,7 +24,8 @@ public class StatsPlugin extends JavaPlugin {
         saveDefaultConfig();
 
         StatsUtil.setLogger(getLogger());
-        StatsUtil.setStatsFolder(resolveStatsFolder());
+        File statsFolder = resolveStatsFolder();
+        StatsUtil.setStatsFolder(statsFolder);
 
         this.statsManager = new StatsManager(this);
 
@@ -32,18 +34,34 @@ public class StatsPlugin extends JavaPlugin {
         // ПРАВИЛЬНАЯ АСИНХРОННАЯ ПРЕДЗАГРУЗКА ВСЕХ СТАТОВ
         statsManager.preloadAllStatsAsync();
 
-        // Периодическое обновление статистики онлайн игроков
-        int intervalTicks = 20 * getConfig().getInt("update-interval-seconds", 60);
-        if (intervalTicks > 0) {
-            Bukkit.getScheduler().runTaskTimer(
-                    this,
-                    statsManager::updateAllOnlinePlayers,
-                    intervalTicks,
-                    intervalTicks
+        // Отслеживание изменений файлов статистики (онлайн и оффлайн игроки)
+        if (statsFolder != null && getConfig().getBoolean("watch.enabled", true)) {
+            watcher = new StatsDirectoryWatcher(
+                    statsFolder.toPath(),
+                    getLogger(),
+                    getConfig().getLong("watch.debounce-ms", 500),
+                    getConfig().getLong("watch.scan-interval-seconds", 30) * 1000L,
+                    getConfig().getBoolean("watch.force-scan", false),
+                    statsManager::reloadChanged
             );
-        } else {
+            watcher.start();
+        }
+
+        // Плановое обновление онлайн игроков порциями (если нет отслеживания каталога)
+        long intervalMillis = 1000L * getConfig().getInt("update-interval-seconds", 60);
+        if (watcher != null) {
+            getLogger().info("Отслеживание stats каталога включено, периодический опрос онлайн игроков не нужен.");
+            intervalMillis = 0;
+        } else if (intervalMillis <= 0) {
             getLogger().warning("update-interval-seconds <= 0, автообновление статистики отключено.");
+            intervalMillis = 0;
         }
+        // Вход, выход и StatsManager.updatePlayer ставят срочное обновление в тот же планировщик
+        // и при intervalMillis = 0; /stat только читает кэш
+        statsManager.startRefreshScheduler(intervalMillis);
+
+        // Обслуживание индексов (async, раз в минуту)
+        Bukkit.getScheduler().runTaskTimerAsynchronously(this, statsManager::runMaintenance, 20L * 60, 20L * 60);
 
         // WEB API
         boolean webEnabled = getConfig().getBoolean("web.enabled", true);
@@ -51,8 +69,25 @@ public class StatsPlugin extends JavaPlugin {
         String bindAddress = getConfig().getString("web.bind-address", "0.0.0.0");
         int maxPlayers = getConfig().getInt("web.max-response-players", 0);
         int maxTop = getConfig().getInt("web.max-top-results", 20);
+        int maxSearch = getConfig().getInt("web.max-search-results", 20);
+        int maxBatch = getConfig().getInt("web.max-batch-players", 100);
         boolean corsEnabled = getConfig().getBoolean("web.cors.enabled", false);
         String corsAllowOrigin = getConfig().getString("web.cors.allow-origin", "*");
+        int cacheEntries = getConfig().getInt("web.cache.max-entries", 256);
+        boolean compressionEnabled = getConfig().getBoolean("web.compression.enabled", true);
+        int compressionMinBytes = getConfig().getInt("web.compression.min-bytes", 1024);
+        String executorMode = getConfig().getString("web.executor.mode", "virtual");
+        int executorThreads = getConfig().getInt("web.executor.threads", 4);
+        int maxConcurrent = getConfig().getInt("web.limits.max-concurrent", 64);
+        int maxConcurrentExpensive = getConfig().getInt("web.limits.max-concurrent-expensive", 4);
+        int maxQueued = getConfig().getInt("web.limits.max-queued", 128);
+        long queueTimeoutMs = getConfig().getLong("web.limits.queue-timeout-ms", 2000);
+        int retryAfter = getConfig().getInt("web.limits.retry-after-seconds", 1);
+        int maxHistoryPoints = getConfig().getInt("history.max-points", 10000);
+        int maxHistogramBuckets = getConfig().getInt("distribution.max-buckets", 100);
+        int streamHeartbeat = getConfig().getInt("stream.heartbeat-seconds", 15);
+        boolean metricsEnabled = getConfig().getBoolean("web.metrics.enabled", true);
+        String metricsPath = getConfig().getString("web.metrics.path", "/moss/metrics");
 
         if (webEnabled) {
             if (!isValidPort(port)) {
@@ -62,8 +97,25 @@ public class StatsPlugin extends JavaPlugin {
                         resolveBindAddress(bindAddress),
                         Math.max(0, maxPlayers),
                         Math.max(1, maxTop),
+                        Math.max(1, maxSearch),
+                        Math.max(1, maxBatch),
                         corsEnabled,
-                        corsAllowOrigin
+                        corsAllowOrigin,
+                        Math.max(1, cacheEntries),
+                        compressionEnabled,
+                        Math.max(0, compressionMinBytes),
+                        resolveExecutorMode(executorMode),
+                        Math.max(1, executorThreads),
+                        Math.max(1, maxConcurrent),
+                        Math.max(1, maxConcurrentExpensive),
+                        Math.max(0, maxQueued),
+                        Math.max(0, queueTimeoutMs),
+                        Math.max(1, retryAfter),
+                        Math.max(1, maxHistoryPoints),
+                        Math.max(1, maxHistogramBuckets),
+                        Math.max(1, streamHeartbeat),
+                        metricsEnabled,
+                        normalizeContextPath(metricsPath)
                 );
                 webServer = new WebServer(statsManager, getLogger(), settings);
                 webServer.start(port);
@@ -79,10 +131,18 @@ public class StatsPlugin extends JavaPlugin {
     @Override
     public void onDisable() {
 
+        if (watcher != null) {
+            watcher.stop();
+        }
+
         if (webServer != null) {
             webServer.stop();
         }
 
+        if (statsManager != null) {
+            statsManager.shutdown();
+        }
+
         getLogger().info("StatsPlugin disabled");
     }
 
@@ -93,7 +153,7 @@ public class StatsPlugin extends JavaPlugin {
             return false;
 
         if (args.length != 2) {
-            sender.sendMessage("Usage: /stat <player> <minecraft:xxx>");
+            sender.sendMessage("Usage: /stat <player> <minecraft:xxx | section/key>");
             return true;
         }
 
@@ -103,10 +163,17 @@ public class StatsPlugin extends JavaPlugin {
             return true;
         }
 
-        String statKey = args[1];
+        String statKey = StatColumns.canonicalKey(args[1]);
         Integer value = statsManager.getStat(target.getUniqueId(), statKey);
 
-        sender.sendMessage("Stats for " + target.getName() + ": " + statKey + " = " + value);
+        // Для ключа без раздела показываем, какой раздел взят и где ещё есть такой ключ
+        List<String> resolved = statsManager.resolveStatKey(statKey);
+        String shown = resolved.isEmpty() ? statKey : resolved.get(0);
+        sender.sendMessage("Stats for " + target.getName() + ": " + shown + " = " + value);
+        if (resolved.size() > 1) {
+            sender.sendMessage("Also in: " + String.join(", ", resolved.subList(1, resolved.size()))
+                    + ". Use <section>/<key> to pick one.");
+        }
         return true;
     }
 
@@ -156,6 +223,23 @@ public class StatsPlugin extends JavaPlugin {
         return null;
     }
 
+    private WebServer.ExecutorMode resolveExecutorMode(String mode) {
+        try {
+            return WebServer.ExecutorMode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            getLogger().warning("Некорректный web.executor.mode: " + mode + ". Использую virtual");
+            return WebServer.ExecutorMode.VIRTUAL;
+        }
+    }
+
+    private String normalizeContextPath(String path) {
+        if (path == null || path.isBlank()) {
+            return "/moss/metrics";
+        }
+        String trimmed = path.trim();
+        return trimmed.startsWith("/") ? trimmed : "/" + trimmed;
+    }
+
     private boolean isValidPort(int port) {
         return port > 0 && port <= 65535;
     }
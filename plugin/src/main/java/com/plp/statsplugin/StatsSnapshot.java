@@ -0,0 +1,174 @@
+package com.plp.statsplugin;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Двоичный снимок кэша статистики для быстрого старта.
+ *
+ * <pre>
+ * int    magic, int формат, long время записи, string каталог stats
+ * int    число колонок, затем (string section, string key) — id колонки = порядковый номер
+ * int    число строк, затем для каждой:
+ *        long uuid msb, long uuid lsb, long mtime, long размер файла, int DataVersion,
+ *        int n, n × (int колонка, int значение)
+ * int    число имён, затем (long msb, long lsb, string имя)
+ * </pre>
+ * Строки — int длина + UTF-8. Файл пишется во временный и атомарно переименовывается,
+ * читается целиком в буфер.
+ */
+final class StatsSnapshot {
+
+    private static final int MAGIC = 0x4D535331; // "MSS1"
+    private static final int FORMAT = 1;
+
+    private StatsSnapshot() {
+    }
+
+    /**
+     * Результат чтения снимка.
+     */
+    record Info(int rows, int names, long createdAt) {
+    }
+
+    static void write(Path file, String statsFolder, StatStore store, Map<UUID, String> names) throws IOException {
+        StatColumns columns = store.columns();
+
+        // Фиксируем набор строк заранее, чтобы записать их количество;
+        // холодные строки распаковываются по одной при записи
+        List<UUID> uuids = new ArrayList<>(store.size());
+        List<Object> rows = new ArrayList<>(store.size());
+        store.forEachStored((uuid, row) -> {
+            uuids.add(uuid);
+            rows.add(row);
+        });
+        // Колонки считаем после строк: все колонки собранных строк уже зарегистрированы
+        int columnCount = columns.size();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(System.currentTimeMillis());
+            writeString(out, statsFolder);
+
+            out.writeInt(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                writeString(out, columns.section(i));
+                writeString(out, columns.key(i));
+            }
+
+            out.writeInt(rows.size());
+            for (int r = 0; r < rows.size(); r++) {
+                UUID uuid = uuids.get(r);
+                PlayerStats row = StatStore.row(rows.get(r));
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+                out.writeLong(row.lastModified());
+                out.writeLong(row.fileSize());
+                out.writeInt(row.dataVersion());
+                out.writeInt(row.size());
+                for (int i = 0; i < row.size(); i++) {
+                    out.writeInt(row.columnAt(i));
+                    out.writeInt(row.valueAt(i));
+                }
+            }
+
+            List<Map.Entry<UUID, String>> nameEntries = new ArrayList<>(names.entrySet());
+            out.writeInt(nameEntries.size());
+            for (Map.Entry<UUID, String> entry : nameEntries) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                writeString(out, entry.getValue());
+            }
+        }
+
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Читает снимок и отдаёт строки и имена потребителям. Колонки снимка заново
+     * интернируются в {@code columns}, поэтому id текущего процесса могут отличаться.
+     * @return null, если снимка нет или он сделан для другого каталога stats
+     */
+    static Info read(Path file, String statsFolder, StatColumns columns,
+                     BiConsumer<UUID, PlayerStats> rows, BiConsumer<UUID, String> names) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        // Файл читается один раз при старте — в обычный буфер: отображение в память держало бы
+        // файл открытым до сборки мусора, и на Windows следующая запись снимка не смогла бы его заменить
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT) {
+                throw new IOException("неизвестный формат снимка");
+            }
+            long createdAt = in.getLong();
+            if (!readString(in).equals(statsFolder)) {
+                return null;
+            }
+
+            int columnCount = in.getInt();
+            int[] remap = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                String section = readString(in);
+                String key = readString(in);
+                remap[i] = columns.intern(section, key);
+            }
+
+            int rowCount = in.getInt();
+            for (int r = 0; r < rowCount; r++) {
+                UUID uuid = new UUID(in.getLong(), in.getLong());
+                long lastModified = in.getLong();
+                long fileSize = in.getLong();
+                PlayerStats.Builder builder = new PlayerStats.Builder(columns)
+                        .stamp(new StatsUtil.FileStamp(lastModified, fileSize))
+                        .dataVersion(in.getInt());
+                int n = in.getInt();
+                for (int i = 0; i < n; i++) {
+                    builder.put(remap[in.getInt()], in.getInt());
+                }
+                rows.accept(uuid, builder.build());
+            }
+
+            int nameCount = in.getInt();
+            for (int i = 0; i < nameCount; i++) {
+                names.accept(new UUID(in.getLong(), in.getLong()), readString(in));
+            }
+            return new Info(rowCount, nameCount, createdAt);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("снимок повреждён", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,190 @@
+package com.plp.statsplugin;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Рассылка изменений статистики для /moss/stream (Server-Sent Events).
+ *
+ * <p>При замене строки игрока вычисляется разница — только изменившиеся колонки (слиянием
+ * двух отсортированных массивов) — и раскладывается по подпискам. У каждой подписки своя
+ * ограниченная очередь: если клиент не успевает её разбирать, очередь очищается, а клиенту
+ * отправляется событие {@code resync}. Поток загрузки никогда не ждёт подписчиков.
+ */
+final class StatsStream implements StatsChangeListener {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Изменение одного игрока: новые значения изменившихся колонок (0 — ключ исчез из файла).
+     * {@code removed} — игрок удалён из кэша.
+     */
+    record Change(UUID uuid, int[] columns, int[] values, boolean removed, long dataVersion) {
+    }
+
+    /**
+     * Подписка одного клиента с фильтрами по игрокам и ключам.
+     */
+    final class Subscription implements AutoCloseable {
+        private final Set<UUID> uuids;
+        private final StatProjection fields;
+        private final BlockingQueue<Change> queue;
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed;
+
+        private Subscription(Set<UUID> uuids, StatProjection fields) {
+            this.uuids = uuids;
+            this.fields = fields;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Фильтр ключей или null, если нужны все изменившиеся ключи.
+         */
+        StatProjection fields() {
+            return fields;
+        }
+
+        /**
+         * Следующее изменение или null, если за {@code timeoutMillis} ничего не пришло.
+         */
+        Change poll(long timeoutMillis) throws InterruptedException {
+            return queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Сколько изменений потеряно с прошлого вызова; больше нуля — клиенту нужен resync.
+         */
+        long takeDropped() {
+            return dropped.getAndSet(0);
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        private void offer(Change change) {
+            if (uuids != null && !uuids.contains(change.uuid())) {
+                return;
+            }
+            if (!queue.offer(change)) {
+                // Медленный клиент: старые изменения уже не нужны, он перечитает состояние целиком
+                int cleared = queue.size();
+                queue.clear();
+                dropped.addAndGet(cleared + 1L);
+                droppedTotal.addAndGet(cleared + 1L);
+            }
+        }
+    }
+
+    private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongSupplier dataVersion;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final AtomicLong droppedTotal = new AtomicLong();
+
+    StatsStream(LongSupplier dataVersion, int maxSubscribers, int bufferSize) {
+        this.dataVersion = dataVersion;
+        this.maxSubscribers = Math.max(0, maxSubscribers);
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+    /**
+     * Новая подписка или null, если достигнут лимит подписчиков.
+     * @param uuids  игроки, по которым нужны изменения (null — все)
+     * @param fields ключи, которые нужно оставить в изменениях (null — все)
+     */
+    synchronized Subscription subscribe(Set<UUID> uuids, StatProjection fields) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        Subscription subscription = new Subscription(uuids, fields);
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    int subscribers() {
+        return subscribers.size();
+    }
+
+    long droppedEvents() {
+        return droppedTotal.get();
+    }
+
+    /**
+     * Закрывает все подписки (выключение плагина): потоки отправки завершатся на следующем цикле.
+     */
+    void closeAll() {
+        for (Subscription subscription : subscribers) {
+            subscription.close();
+        }
+    }
+
+    @Override
+    public void onStatsChanged(UUID uuid, PlayerStats previous, PlayerStats current) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Change change = diff(uuid, previous, current, dataVersion.getAsLong());
+        if (change == null) {
+            return;
+        }
+        for (Subscription subscription : subscribers) {
+            subscription.offer(change);
+        }
+    }
+
+    /**
+     * Разница двух строк игрока или null, если значения не изменились.
+     */
+    static Change diff(UUID uuid, PlayerStats previous, PlayerStats current, long dataVersion) {
+        if (current == null) {
+            return new Change(uuid, EMPTY, EMPTY, true, dataVersion);
+        }
+        int prevSize = previous == null ? 0 : previous.size();
+        int[] columns = new int[prevSize + current.size()];
+        int[] values = new int[columns.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < prevSize || j < current.size()) {
+            int prevColumn = i < prevSize ? previous.columnAt(i) : Integer.MAX_VALUE;
+            int column = j < current.size() ? current.columnAt(j) : Integer.MAX_VALUE;
+            if (prevColumn < column) {
+                // Ключ пропал из файла
+                if (previous.valueAt(i) != 0) {
+                    columns[n] = prevColumn;
+                    values[n++] = 0;
+                }
+                i++;
+            } else if (column < prevColumn) {
+                columns[n] = column;
+                values[n++] = current.valueAt(j++);
+            } else {
+                if (previous.valueAt(i) != current.valueAt(j)) {
+                    columns[n] = column;
+                    values[n++] = current.valueAt(j);
+                }
+                i++;
+                j++;
+            }
+        }
+        if (n == 0) {
+            return null;
+        }
+        return new Change(uuid, Arrays.copyOf(columns, n), Arrays.copyOf(values, n), false, dataVersion);
+    }
+}
@@ -0,0 +1,304 @@
+package com.plp.statsplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.bukkit.OfflinePlayer;
+
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class StatsUtil {
+
+    private static final Gson gson = new Gson();
+
+    // Переиспользуемые буферы потокового парсера (по одному набору на поток загрузки)
+    private static final ThreadLocal<ParseBuffers> parseBuffers = ThreadLocal.withInitial(ParseBuffers::new);
+
+    // Кэш stats/ директории, чтобы не искать каждый раз
+    private static volatile File cachedStatsFolder = null;
+    private static volatile Logger logger = null;
+
+    // Файлы, которые не удалось прочитать или разобрать (для /moss/metrics)
+    private static final LongAdder parseFailures = new LongAdder();
+
+    /**
+     * Поиск каталога stats/. Один раз, потом используется кэш.
+     */
+    private static File getStatsFolder() {
+
+        // Если ранее уже нашли — используем
+        if (cachedStatsFolder != null && cachedStatsFolder.exists()) {
+            return cachedStatsFolder;
+        }
+
+        log(Level.WARNING, "Не найден каталог stats/. Убедитесь, что путь задан в конфиге.");
+        return null;
+    }
+
+    /**
+     * Каталог stats/ из конфигурации (без проверки существования и без предупреждений).
+     */
+    static File getConfiguredStatsFolder() {
+        return cachedStatsFolder;
+    }
+
+    public static void setStatsFolder(File statsFolder) {
+        cachedStatsFolder = statsFolder;
+    }
+
+    static long getParseFailures() {
+        return parseFailures.sum();
+    }
+
+    public static void setLogger(Logger pluginLogger) {
+        logger = pluginLogger;
+    }
+
+    /**
+     * Чтение JSON статистики игрока
+     */
+    public static JsonObject readStats(OfflinePlayer player) {
+        if (player == null || player.getUniqueId() == null) {
+            return null;
+        }
+        return readStats(player.getUniqueId());
+    }
+
+    public static JsonObject readStats(UUID uuid) {
+        File statsFile = getStatsFile(uuid);
+        if (statsFile == null) return null;
+
+        if (!statsFile.exists()) {
+            return null;
+        }
+
+        try (FileReader reader = new FileReader(statsFile)) {
+            return gson.fromJson(reader, JsonObject.class);
+        } catch (Exception e) {
+            parseFailures.increment();
+            log(Level.WARNING, "Ошибка чтения статистики: " + statsFile.getAbsolutePath());
+            log(Level.FINE, "Ошибка чтения статистики: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Потоковое чтение статистики игрока прямо в колоночный вид, без дерева JsonObject.
+     * Файл читается в пул-буфер потока, декодируется в переиспользуемый char[] и разбирается
+     * {@link JsonReader}; тройки section/key/value сразу уходят в {@link PlayerStats.Builder}.
+     */
+    static PlayerStats readStats(UUID uuid, PlayerStats.Builder builder) {
+        File statsFile = getStatsFile(uuid);
+        if (statsFile == null || !statsFile.exists()) {
+            return null;
+        }
+
+        try {
+            ParseBuffers buffers = parseBuffers.get();
+            int length = buffers.decode(statsFile.toPath());
+            parseInto(new JsonReader(new CharArrayReader(buffers.chars, 0, length)), builder);
+            return builder.build();
+        } catch (Exception e) {
+            parseFailures.increment();
+            log(Level.WARNING, "Ошибка чтения статистики: " + statsFile.getAbsolutePath());
+            log(Level.FINE, "Ошибка чтения статистики: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void parseInto(JsonReader reader, PlayerStats.Builder builder) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("stats") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String section = reader.nextName();
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String key = reader.nextName();
+                        if (reader.peek() == JsonToken.NUMBER) {
+                            builder.put(section, key, nextClampedInt(reader));
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                reader.endObject();
+            } else if (name.equals("DataVersion") && reader.peek() == JsonToken.NUMBER) {
+                builder.dataVersion(nextClampedInt(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Число, прижатое к диапазону int: повреждённый или модовый счётчик больше int
+     * не должен ронять весь файл игрока. Целые литералы JsonReader отдаёт без разбора строки.
+     */
+    private static int nextClampedInt(JsonReader reader) throws IOException {
+        return (int) reader.nextDouble(); // приведение double -> int насыщается на границах
+    }
+
+    private static final class ParseBuffers {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private byte[] bytes = new byte[16 * 1024];
+        private char[] chars = new char[16 * 1024];
+
+        /**
+         * Читает файл целиком в {@link #bytes} и декодирует в {@link #chars}.
+         * @return число символов
+         */
+        int decode(Path path) throws IOException {
+            int length = 0;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > bytes.length) {
+                    bytes = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(size, bytes.length * 2L))];
+                }
+                ByteBuffer in = ByteBuffer.wrap(bytes);
+                while (true) {
+                    if (!in.hasRemaining()) {
+                        // файл вырос во время чтения
+                        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                        in = ByteBuffer.wrap(bytes, length, bytes.length - length);
+                    }
+                    int read = channel.read(in);
+                    if (read < 0) {
+                        break;
+                    }
+                    length += read;
+                }
+            }
+
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            CharBuffer out = CharBuffer.wrap(chars);
+            decoder.reset();
+            decoder.decode(ByteBuffer.wrap(bytes, 0, length), out, true);
+            decoder.flush(out);
+            return out.position();
+        }
+    }
+
+    /**
+     * Отметка файла статистики: время изменения и размер.
+     * Позволяет не перечитывать файл, который ванильный сервер не перезаписывал.
+     */
+    public record FileStamp(long lastModified, long size) {
+    }
+
+    /**
+     * Отметка файла статистики игрока или null, если файла нет.
+     */
+    public static FileStamp readStamp(UUID uuid) {
+        File statsFile = getStatsFile(uuid);
+        if (statsFile == null) return null;
+
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(statsFile.toPath(), BasicFileAttributes.class);
+            return new FileStamp(attrs.lastModifiedTime().toMillis(), attrs.size());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static File getStatsFile(UUID uuid) {
+        File statsDir = getStatsFolder();
+        if (statsDir == null || uuid == null) return null;
+
+        return new File(statsDir, uuid + ".json");
+    }
+
+    private static void log(Level level, String message) {
+        if (logger != null) {
+            logger.log(level, message);
+        }
+    }
+
+    /**
+     * Чтение custom статистики (minecraft:custom)
+     */
+    public static int getCustomStat(JsonObject root, String statKey) {
+        if (root == null) return 0;
+
+        try {
+            JsonObject stats = root.getAsJsonObject("stats");
+            if (stats == null) return 0;
+
+            JsonObject custom = stats.getAsJsonObject("minecraft:custom");
+            if (custom == null) return 0;
+
+            if (custom.has(statKey)) {
+                return custom.get(statKey).getAsInt();
+            }
+        } catch (Exception ignored) {}
+
+        return 0;
+    }
+
+    /**
+     * Универсальный поиск статистики в дереве файла: {@code section/key} или ключ без раздела
+     * (custom / mined / crafted / used / broken / picked_up / dropped — первый найденный).
+     */
+    public static int getAnyStat(JsonObject root, String statKey) {
+        if (root == null || statKey == null) return 0;
+
+        if (!(root.get("stats") instanceof JsonObject statsRoot)) {
+            return 0;
+        }
+
+        int slash = statKey.indexOf('/');
+        if (slash > 0) {
+            JsonElement value = statsRoot.get(statKey.substring(0, slash)) instanceof JsonObject section
+                    ? section.get(statKey.substring(slash + 1))
+                    : null;
+            return isNumber(value) ? value.getAsInt() : 0;
+        }
+
+        for (String section : StatColumns.SEARCH_SECTIONS) {
+            if (statsRoot.get(section) instanceof JsonObject sec) {
+                JsonElement value = sec.get(statKey);
+                if (isNumber(value)) {
+                    return value.getAsInt();
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    private static boolean isNumber(JsonElement value) {
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber();
+    }
+}
@@ -0,0 +1,1265 @@
+package com.plp.statsplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class WebServer {
+
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final double[] QUANTILES = {0, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 1};
+    private static final String[] QUANTILE_NAMES = {"min", "p10", "p25", "p50", "p75", "p90", "p95", "p99", "max"};
+    private static final int DEFAULT_HISTOGRAM_BUCKETS = 20;
+    private static final String INVALID_FIELDS = "Invalid fields: expected <section>/<key> or <section>/* separated by commas";
+    private static final int MAX_BATCH_BODY_BYTES = 64 * 1024;
+
+    private final StatsManager statsManager;
+    private HttpServer server;
+    private final Gson gson = new Gson();
+    private final Logger logger;
+    private final Settings settings;
+    private final ResponseCache responseCache;
+    private final AdmissionLimiter cheapLimiter;
+    private final AdmissionLimiter expensiveLimiter;
+    private final MetricsRegistry metrics;
+    private ExecutorService executor;
+
+    public WebServer(StatsManager statsManager, Logger logger, Settings settings) {
+        this.statsManager = statsManager;
+        this.logger = logger;
+        this.settings = settings;
+        this.responseCache = new ResponseCache(settings.responseCacheEntries());
+        this.cheapLimiter = new AdmissionLimiter(settings.maxConcurrent(), settings.maxQueued(), settings.queueTimeoutMillis());
+        this.expensiveLimiter = new AdmissionLimiter(settings.maxConcurrentExpensive(), settings.maxQueued(), settings.queueTimeoutMillis());
+        this.metrics = statsManager.getMetrics();
+
+        metrics.gauge("moss_http_in_flight", "Requests being handled", cheapLimiter::inFlight, "pool", "cheap");
+        metrics.gauge("moss_http_in_flight", "Requests being handled", expensiveLimiter::inFlight, "pool", "expensive");
+        metrics.gauge("moss_http_waiting", "Requests waiting for a slot", cheapLimiter::waiting, "pool", "cheap");
+        metrics.gauge("moss_http_waiting", "Requests waiting for a slot", expensiveLimiter::waiting, "pool", "expensive");
+        metrics.gauge("moss_response_cache_entries", "Serialized responses in the version cache", responseCache::size);
+    }
+
+    public void start(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(settings.bindAddress(), port), 0);
+
+            // Тяжёлые: полная статистика многих игроков
+            route("/moss/players", expensiveLimiter, this::handleAllPlayers);
+            route("/moss/online", expensiveLimiter, this::handleOnline);
+
+            route("/moss/players/", cheapLimiter, this::handlePlayerByUUID);
+            route("/moss/player/", cheapLimiter, this::handlePlayerByName);
+            route("/moss/players/batch", expensiveLimiter, this::handleBatch);
+            route("/moss/summary", cheapLimiter, this::handleSummary);
+            route("/moss/search", cheapLimiter, this::handleSearch);
+            route("/moss/status", cheapLimiter, this::handleStatus);
+
+            // Старый фиксированный топ по прыжкам
+            route("/moss/top/jumps", cheapLimiter, this::handleTopJumps);
+
+            // Универсальный топ: /moss/top/<stat_key>
+            route("/moss/top/", cheapLimiter, this::handleTopGeneric);
+
+            // Составные рейтинги из config.yml: /moss/top/score/<name>
+            route("/moss/top/score/", cheapLimiter, this::handleTopScore);
+
+            // Место игрока: /moss/rank/<stat_key>/<uuid|name>
+            route("/moss/rank/", cheapLimiter, this::handleRank);
+
+            // Распределение: /moss/distribution/<stat_key>?buckets=&scale=
+            route("/moss/distribution/", cheapLimiter, this::handleDistribution);
+
+            // История: /moss/history/<uuid>/<stat_key>?from=&to=
+            route("/moss/history/", cheapLimiter, this::handleHistory);
+
+            // Поток изменений (SSE). Соединение живёт долго и пишется отдельным потоком,
+            // поэтому не занимает слот ограничителя; число клиентов ограничено stream.max-subscribers
+            server.createContext("/moss/stream", this::handleStream);
+
+            // Метрики в формате Prometheus
+            if (settings.metricsEnabled()) {
+                try {
+                    route(settings.metricsPath(), cheapLimiter, this::handleMetrics);
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Путь метрик " + settings.metricsPath() + " уже занят другим endpoint, метрики отключены.");
+                }
+            }
+
+            executor = createExecutor();
+            server.setExecutor(executor);
+            server.start();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Не удалось запустить web-сервер.", e);
+        }
+    }
+
+    private ExecutorService createExecutor() {
+        if (settings.executorMode() == ExecutorMode.FIXED) {
+            AtomicInteger ids = new AtomicInteger();
+            return Executors.newFixedThreadPool(settings.executorThreads(), r -> {
+                Thread t = new Thread(r, "StatsPlugin-Web-" + ids.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        // Поток на запрос: долгая выгрузка /moss/players не держит короткие запросы
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("StatsPlugin-Web-", 0).factory());
+    }
+
+    private void route(String path, AdmissionLimiter limiter, HttpHandler handler) {
+        server.createContext(path, guarded(path, limiter, handler));
+    }
+
+    /**
+     * Оборачивает обработчик в ограничитель (при переполнении — 429 с Retry-After)
+     * и в метрики: число запросов по коду ответа и гистограмма длительности.
+     */
+    private HttpHandler guarded(String endpoint, AdmissionLimiter limiter, HttpHandler handler) {
+        MetricsRegistry.Histogram latency = metrics.histogram("moss_http_request_duration_seconds",
+                "HTTP request duration", MetricsRegistry.LATENCY_BUCKETS, "endpoint", endpoint);
+        return ex -> {
+            long start = System.nanoTime();
+            String code = "error";
+            try {
+                if (!limiter.tryEnter()) {
+                    ex.getResponseHeaders().set("Retry-After", String.valueOf(settings.retryAfterSeconds()));
+                    send(ex, 429, "Too Many Requests", "text/plain");
+                    code = "429";
+                    return;
+                }
+                try {
+                    handler.handle(ex);
+                    code = String.valueOf(ex.getResponseCode());
+                } finally {
+                    limiter.release();
+                }
+            } finally {
+                latency.observeNanos(System.nanoTime() - start);
+                metrics.counter("moss_http_requests_total", "HTTP requests by endpoint and status",
+                        "endpoint", endpoint, "code", code).inc();
+            }
+        };
+    }
+
+    // /moss/players
+    private void handleAllPlayers(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String fields = queryParam(ex, "fields");
+        StatProjection projection = StatProjection.parse(fields);
+        if (projection == null && fields != null) {
+            send(ex, 400, INVALID_FIELDS, "text/plain");
+            return;
+        }
+
+        int limit = resolveLimit(ex, settings.maxResponsePlayers());
+
+        UUID after = null;
+        String afterParam = queryParam(ex, "after");
+        if (afterParam != null && !afterParam.isBlank()) {
+            try {
+                after = UUID.fromString(afterParam.trim());
+            } catch (IllegalArgumentException e) {
+                send(ex, 400, "Invalid cursor", "text/plain");
+                return;
+            }
+        }
+
+        StatStore store = statsManager.getStore();
+        Iterable<UUID> page = store.sortedUuidsAfter(after);
+        if (limit > 0) {
+            // Страница ограничена limit, поэтому список UUID небольшой; +1 — проверка, есть ли продолжение
+            List<UUID> ids = new ArrayList<>(Math.min(limit + 1, 1024));
+            for (UUID uuid : page) {
+                ids.add(uuid);
+                if (ids.size() > limit) {
+                    break;
+                }
+            }
+            if (ids.size() > limit) {
+                ids.remove(limit);
+                String cursor = ids.get(limit - 1).toString();
+                ex.getResponseHeaders().set("X-Next-Cursor", cursor);
+                String fieldsParam = fields != null ? "&fields=" + URLEncoder.encode(fields, StandardCharsets.UTF_8) : "";
+                ex.getResponseHeaders().set("Link", "</moss/players?after=" + cursor + "&limit=" + limit + fieldsParam + ">; rel=\"next\"");
+            }
+            page = ids;
+        }
+
+        Set<UUID> onlineSet = statsManager.getOnlinePlayerIdSet();
+        Iterable<UUID> uuids = page;
+        sendStreamed(ex, out -> {
+            out.beginArray();
+            for (UUID uuid : uuids) {
+                PlayerStats row = store.get(uuid);
+                if (row == null) {
+                    continue; // игрок удалён во время выдачи
+                }
+                out.beginObject();
+                out.name("uuid").value(uuid.toString());
+                out.name("name").value(statsManager.getPlayerName(uuid));
+                out.name("online").value(onlineSet.contains(uuid));
+                out.name("stats");
+                writeStats(out, row, store.columns(), projection);
+                out.endObject();
+            }
+            out.endArray();
+        });
+    }
+
+    // /moss/players/<uuid>
+    private void handlePlayerByUUID(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String[] parts = ex.getRequestURI().getPath().split("/");
+        if (parts.length < 4) {
+            send(ex, 400, "Usage: /moss/players/<uuid>", "text/plain");
+            return;
+        }
+
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(parts[3]);
+        } catch (IllegalArgumentException e) {
+            send(ex, 400, "Invalid UUID", "text/plain");
+            return;
+        }
+
+        String fields = queryParam(ex, "fields");
+        StatProjection projection = StatProjection.parse(fields);
+        if (projection == null && fields != null) {
+            send(ex, 400, INVALID_FIELDS, "text/plain");
+            return;
+        }
+
+        sendCached(ex, () -> playerStatsJson(uuid, projection));
+    }
+
+    // /moss/player/<name>
+    private void handlePlayerByName(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String[] parts = ex.getRequestURI().getPath().split("/");
+        if (parts.length < 4) {
+            send(ex, 400, "Usage: /moss/player/<name>", "text/plain");
+            return;
+        }
+
+        String nameEncoded = parts[3];
+        String name = URLDecoder.decode(nameEncoded, StandardCharsets.UTF_8);
+        if (!isValidPlayerName(name)) {
+            send(ex, 400, "Invalid player name", "text/plain");
+            return;
+        }
+
+        UUID uuid = statsManager.getUUID(name);
+
+        if (uuid == null) {
+            send(ex, 404, "Player not found", "text/plain");
+            return;
+        }
+
+        String fields = queryParam(ex, "fields");
+        StatProjection projection = StatProjection.parse(fields);
+        if (projection == null && fields != null) {
+            send(ex, 400, INVALID_FIELDS, "text/plain");
+            return;
+        }
+
+        sendCached(ex, () -> playerStatsJson(uuid, projection));
+    }
+
+    // POST /moss/players/batch  {"uuids": [...], "names": [...], "fields": "section/key,..."}
+    private void handleBatch(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("POST")) {
+            ex.getResponseHeaders().set("Allow", "POST");
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        JsonObject request;
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BATCH_BODY_BYTES + 1);
+            if (body.length > MAX_BATCH_BODY_BYTES) {
+                send(ex, 413, "Request body too large", "text/plain");
+                return;
+            }
+            request = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (RuntimeException e) {
+            send(ex, 400, "Expected JSON object: {\"uuids\": [...], \"names\": [...], \"fields\": \"...\"}", "text/plain");
+            return;
+        }
+
+        StatProjection projection = null;
+        JsonElement fieldsElement = request.get("fields");
+        if (fieldsElement != null && !fieldsElement.isJsonNull()) {
+            String fields = fieldsElement.isJsonArray()
+                    ? String.join(",", toStrings(fieldsElement.getAsJsonArray()))
+                    : fieldsElement.isJsonPrimitive() ? fieldsElement.getAsString() : null;
+            projection = StatProjection.parse(fields);
+            if (projection == null) {
+                send(ex, 400, INVALID_FIELDS, "text/plain");
+                return;
+            }
+        }
+
+        // Порядок запроса сохраняется, повторы схлопываются
+        Map<UUID, Boolean> requested = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> uuids = toStrings(request.get("uuids"));
+        List<String> names = toStrings(request.get("names"));
+        if (uuids.size() + names.size() > settings.maxBatchPlayers()) {
+            send(ex, 400, "Too many players (max " + settings.maxBatchPlayers() + ")", "text/plain");
+            return;
+        }
+        for (String value : uuids) {
+            try {
+                requested.put(UUID.fromString(value.trim()), Boolean.TRUE);
+            } catch (IllegalArgumentException e) {
+                missing.add(value);
+            }
+        }
+        for (String name : names) {
+            UUID uuid = isValidPlayerName(name) ? statsManager.getUUID(name) : null;
+            if (uuid != null) {
+                requested.put(uuid, Boolean.TRUE);
+            } else {
+                missing.add(name);
+            }
+        }
+
+        StatStore store = statsManager.getStore();
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter out = new JsonWriter(buffer)) {
+            out.beginObject();
+            out.name("players").beginArray();
+            for (UUID uuid : requested.keySet()) {
+                PlayerStats row = store.acquire(uuid);
+                if (row == null) {
+                    missing.add(uuid.toString());
+                    continue;
+                }
+                out.beginObject();
+                out.name("uuid").value(uuid.toString());
+                out.name("name").value(statsManager.getPlayerName(uuid));
+                out.name("online").value(statsManager.isOnline(uuid));
+                out.name("stats");
+                writeStats(out, row, store.columns(), projection);
+                out.endObject();
+            }
+            out.endArray();
+            out.name("missing").beginArray();
+            for (String value : missing) {
+                out.value(value);
+            }
+            out.endArray();
+            out.endObject();
+        }
+        send(ex, 200, buffer.toString(), JSON);
+    }
+
+    private static List<String> toStrings(JsonElement element) {
+        List<String> values = new ArrayList<>();
+        if (element == null || !element.isJsonArray()) {
+            return values;
+        }
+        for (JsonElement item : element.getAsJsonArray()) {
+            if (item.isJsonPrimitive()) {
+                values.add(item.getAsString());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Статистика одного игрока целиком или по проекции — сразу в строку, без JsonObject.
+     */
+    private String playerStatsJson(UUID uuid, StatProjection projection) {
+        StatStore store = statsManager.getStore();
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter out = new JsonWriter(buffer)) {
+            writeStats(out, store.acquire(uuid), store.columns(), projection);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    private static void writeStats(JsonWriter out, PlayerStats row, StatColumns columns, StatProjection projection) throws IOException {
+        if (projection != null) {
+            projection.writeJson(out, row, columns);
+        } else if (row != null) {
+            row.writeJson(out, columns);
+        } else {
+            out.beginObject();
+            out.endObject();
+        }
+    }
+
+    // /moss/search?q=<prefix>&limit=
+    private void handleSearch(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String prefix = queryParam(ex, "q");
+        if (prefix == null || !isValidPlayerName(prefix.trim())) {
+            send(ex, 400, "Usage: /moss/search?q=<name prefix>&limit=", "text/plain");
+            return;
+        }
+
+        // Без кэша ответов: запросы автодополнения почти не повторяются и вытесняли бы тяжёлые ответы
+        int limit = resolveLimit(ex, settings.maxSearchResults());
+        JsonArray arr = new JsonArray();
+        for (UUID uuid : statsManager.searchNames(prefix.trim(), limit)) {
+            JsonObject o = new JsonObject();
+            o.addProperty("uuid", uuid.toString());
+            o.addProperty("name", statsManager.getPlayerName(uuid));
+            o.addProperty("online", statsManager.isOnline(uuid));
+            arr.add(o);
+        }
+        send(ex, 200, gson.toJson(arr), JSON);
+    }
+
+    // /moss/online
+    private void handleOnline(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String fields = queryParam(ex, "fields");
+        StatProjection projection = StatProjection.parse(fields);
+        if (projection == null && fields != null) {
+            send(ex, 400, INVALID_FIELDS, "text/plain");
+            return;
+        }
+
+        sendCached(ex, () -> {
+            StatStore store = statsManager.getStore();
+            List<UUID> online = statsManager.getOnlinePlayerIds();
+            online.sort(Comparator.comparing(UUID::toString));
+
+            StringWriter buffer = new StringWriter();
+            try (JsonWriter out = new JsonWriter(buffer)) {
+                out.beginArray();
+                for (UUID uuid : online) {
+                    out.beginObject();
+                    out.name("uuid").value(uuid.toString());
+                    out.name("name").value(statsManager.getPlayerName(uuid));
+                    out.name("stats");
+                    writeStats(out, store.get(uuid), store.columns(), projection);
+                    out.endObject();
+                }
+                out.endArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.toString();
+        });
+    }
+
+    // /moss/summary
+    private void handleSummary(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        sendCached(ex, () -> {
+            JsonObject out = new JsonObject();
+            out.addProperty("players", statsManager.getCachedPlayerCount());
+            out.addProperty("warming", statsManager.isWarming());
+            out.add("totals", statsManager.getSummaryTotals());
+            return gson.toJson(out);
+        });
+    }
+
+    // /moss/status
+    private void handleStatus(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        JsonObject out = new JsonObject();
+        out.addProperty("state", statsManager.isWarming() ? "warming" : "ready");
+        out.addProperty("players", statsManager.getCachedPlayerCount());
+        out.add("memory", statsManager.getMemoryReport());
+        out.add("loader", statsManager.getLoaderReport());
+
+        JsonObject web = new JsonObject();
+        web.addProperty("executor", settings.executorMode().name().toLowerCase());
+        web.addProperty("in_flight", cheapLimiter.inFlight());
+        web.addProperty("waiting", cheapLimiter.waiting());
+        web.addProperty("in_flight_expensive", expensiveLimiter.inFlight());
+        web.addProperty("waiting_expensive", expensiveLimiter.waiting());
+        web.addProperty("cached_responses", responseCache.size());
+        out.add("web", web);
+
+        send(ex, 200, gson.toJson(out), "application/json; charset=UTF-8");
+    }
+
+    // /moss/top/jumps
+    private void handleTopJumps(HttpExchange ex) throws IOException {
+        handleTopInternal(ex, "minecraft:jump");
+    }
+
+    // /moss/top/<stat_key>
+    private void handleTopGeneric(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String statKey = statKeyFromPath(ex, 3);
+        if (statKey == null) {
+            send(ex, 400, "Usage: /moss/top/<stat_key> or /moss/top/<section>/<key>", "text/plain");
+            return;
+        }
+        if (!isValidStatKey(statKey)) {
+            send(ex, 400, "Invalid stat key", "text/plain");
+            return;
+        }
+        if (statsManager.resolveStatKey(statKey).isEmpty()) {
+            send(ex, 404, "Unknown stat key", "text/plain");
+            return;
+        }
+
+        handleTopInternal(ex, statKey);
+    }
+
+    private void handleTopInternal(HttpExchange ex, String statKey) throws IOException {
+        describeStatKey(ex, statKey);
+        int limit = resolveLimit(ex, settings.maxTopResults());
+        int max = limit > 0 ? limit : settings.maxTopResults();
+
+        sendCached(ex, () -> {
+            JsonArray arr = new JsonArray();
+            for (RankIndex.Entry entry : statsManager.getTop(statKey, max)) {
+                JsonObject o = new JsonObject();
+                o.addProperty("uuid", entry.uuid().toString());
+                o.addProperty("name", statsManager.getPlayerName(entry.uuid()));
+                o.addProperty("value", entry.value());
+                o.addProperty("stat_key", statKey);
+                arr.add(o);
+            }
+            return gson.toJson(arr);
+        });
+    }
+
+    // /moss/top/score/<name>
+    private void handleTopScore(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String[] parts = ex.getRequestURI().getPath().split("/");
+        if (parts.length != 5 || !parts[4].matches("[a-z0-9_\\-]+")) {
+            send(ex, 400, "Usage: /moss/top/score/<name>", "text/plain");
+            return;
+        }
+        String name = parts[4];
+        int limit = resolveLimit(ex, settings.maxTopResults());
+        int max = limit > 0 ? limit : settings.maxTopResults();
+
+        sendCached(ex, "Unknown score", () -> {
+            List<CompositeScores.Entry> top = statsManager.getScoreTop(name, max);
+            if (top == null) {
+                return null;
+            }
+            JsonArray arr = new JsonArray();
+            for (CompositeScores.Entry entry : top) {
+                JsonObject o = new JsonObject();
+                o.addProperty("uuid", entry.uuid().toString());
+                o.addProperty("name", statsManager.getPlayerName(entry.uuid()));
+                o.addProperty("score", entry.score());
+                o.addProperty("score_name", name);
+                arr.add(o);
+            }
+            return gson.toJson(arr);
+        });
+    }
+
+    // /moss/rank/<stat_key>/<uuid|name>
+    private void handleRank(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String[] parts = ex.getRequestURI().getRawPath().split("/");
+        String statKey = statKeyFromPath(ex, 3, 1);
+        if (statKey == null) {
+            send(ex, 400, "Usage: /moss/rank/<stat_key>/<uuid|name>", "text/plain");
+            return;
+        }
+        if (!isValidStatKey(statKey)) {
+            send(ex, 400, "Invalid stat key", "text/plain");
+            return;
+        }
+        if (statsManager.resolveStatKey(statKey).isEmpty()) {
+            send(ex, 404, "Unknown stat key", "text/plain");
+            return;
+        }
+
+        String player = URLDecoder.decode(parts[parts.length - 1], StandardCharsets.UTF_8);
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(player);
+        } catch (IllegalArgumentException e) {
+            if (!isValidPlayerName(player)) {
+                send(ex, 400, "Invalid UUID or player name", "text/plain");
+                return;
+            }
+            uuid = statsManager.getUUID(player);
+        }
+
+        if (uuid == null) {
+            send(ex, 404, "Player not found", "text/plain");
+            return;
+        }
+
+        describeStatKey(ex, statKey);
+        UUID target = uuid;
+        sendCached(ex, "Player not found", () -> {
+            RankIndex.Rank rank = statsManager.getRank(statKey, target);
+            if (rank == null) {
+                return null;
+            }
+            JsonObject o = new JsonObject();
+            o.addProperty("uuid", target.toString());
+            o.addProperty("name", statsManager.getPlayerName(target));
+            o.addProperty("stat_key", statKey);
+            o.addProperty("value", rank.value());
+            o.addProperty("rank", rank.rank());
+            o.addProperty("total", rank.total());
+            // Доля игроков с меньшим значением и доля игроков не ниже этого места
+            o.addProperty("percentile", percent(rank.below(), rank.total()));
+            o.addProperty("top_percent", percent(rank.rank(), rank.total()));
+            return gson.toJson(o);
+        });
+    }
+
+    private static double percent(int part, int total) {
+        return total == 0 ? 0 : Math.round(part * 10_000.0 / total) / 100.0;
+    }
+
+    // /moss/distribution/<stat_key>?buckets=&scale=linear|log
+    private void handleDistribution(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        String statKey = statKeyFromPath(ex, 3);
+        if (statKey == null) {
+            send(ex, 400, "Usage: /moss/distribution/<stat_key>?buckets=&scale=linear|log", "text/plain");
+            return;
+        }
+        if (!isValidStatKey(statKey)) {
+            send(ex, 400, "Invalid stat key", "text/plain");
+            return;
+        }
+        if (statsManager.resolveStatKey(statKey).isEmpty()) {
+            send(ex, 404, "Unknown stat key", "text/plain");
+            return;
+        }
+
+        int buckets = DEFAULT_HISTOGRAM_BUCKETS;
+        String bucketsParam = queryParam(ex, "buckets");
+        if (bucketsParam != null) {
+            try {
+                buckets = Integer.parseInt(bucketsParam.trim());
+            } catch (NumberFormatException e) {
+                buckets = -1;
+            }
+            if (buckets < 0 || buckets > settings.maxHistogramBuckets()) {
+                send(ex, 400, "buckets must be between 0 and " + settings.maxHistogramBuckets(), "text/plain");
+                return;
+            }
+        }
+        String scale = queryParam(ex, "scale");
+        if (scale != null && !scale.equals("linear") && !scale.equals("log")) {
+            send(ex, 400, "scale must be linear or log", "text/plain");
+            return;
+        }
+        boolean logScale = "log".equals(scale);
+
+        describeStatKey(ex, statKey);
+        int bins = buckets;
+        sendCached(ex, () -> {
+            DistributionSketch sketch = statsManager.getDistribution(statKey);
+            double[] values = sketch.quantiles(QUANTILES);
+            long count = sketch.count();
+
+            JsonObject o = new JsonObject();
+            o.addProperty("stat_key", statKey);
+            o.addProperty("count", count);
+            o.addProperty("sum", sketch.sum());
+            o.addProperty("relative_accuracy", sketch.relativeAccuracy());
+            if (count > 0) {
+                o.addProperty("mean", Math.round(sketch.sum() * 100.0 / count) / 100.0);
+                JsonObject quantiles = new JsonObject();
+                for (int i = 0; i < QUANTILES.length; i++) {
+                    quantiles.addProperty(QUANTILE_NAMES[i], Math.round(values[i]));
+                }
+                o.add("quantiles", quantiles);
+            }
+
+            JsonArray histogram = new JsonArray();
+            for (DistributionSketch.Bin bin : sketch.histogram(bins, logScale)) {
+                JsonObject b = new JsonObject();
+                b.addProperty("from", Math.round(bin.from()));
+                b.addProperty("to", Math.round(bin.to()));
+                b.addProperty("count", bin.count());
+                histogram.add(b);
+            }
+            o.add("histogram", histogram);
+            return gson.toJson(o);
+        });
+    }
+
+    // /moss/stream?uuids=<uuid,...>&fields=<section/key,...>
+    private void handleStream(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+
+        Set<UUID> uuids = null;
+        String uuidsParam = queryParam(ex, "uuids");
+        if (uuidsParam != null && !uuidsParam.isBlank()) {
+            uuids = new HashSet<>();
+            for (String part : uuidsParam.split(",")) {
+                try {
+                    uuids.add(UUID.fromString(part.trim()));
+                } catch (IllegalArgumentException e) {
+                    send(ex, 400, "Invalid UUID: " + part.trim(), "text/plain");
+                    return;
+                }
+            }
+            if (uuids.size() > settings.maxBatchPlayers()) {
+                send(ex, 400, "Too many uuids, max " + settings.maxBatchPlayers(), "text/plain");
+                return;
+            }
+        }
+
+        String fields = queryParam(ex, "fields");
+        StatProjection projection = StatProjection.parse(fields);
+        if (projection == null && fields != null) {
+            send(ex, 400, INVALID_FIELDS, "text/plain");
+            return;
+        }
+
+        StatsStream.Subscription subscription = statsManager.getStream().subscribe(uuids, projection);
+        if (subscription == null) {
+            ex.getResponseHeaders().set("Retry-After", String.valueOf(settings.streamHeartbeatSeconds()));
+            send(ex, 503, "Too many stream subscribers", "text/plain");
+            return;
+        }
+
+        ex.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+        ex.getResponseHeaders().set("Cache-Control", "no-cache");
+        applyCommonHeaders(ex);
+        ex.sendResponseHeaders(200, 0);
+
+        // Обработчик возвращается сразу: поток пула (в режиме fixed) не держится клиентом
+        Thread.ofVirtual().name("StatsPlugin-Stream").start(() -> pumpStream(ex, subscription));
+    }
+
+    /**
+     * Отправляет события подписки, пока клиент не отключится. Переполнение очереди
+     * превращается в событие resync: клиент должен заново запросить нужное состояние.
+     */
+    private void pumpStream(HttpExchange ex, StatsStream.Subscription subscription) {
+        long heartbeatMillis = settings.streamHeartbeatSeconds() * 1000L;
+        MetricsRegistry.Counter bytes = responseBytes(ex);
+        StatColumns columns = statsManager.getStore().columns();
+        try (subscription; OutputStream os = new CountingOutputStream(ex.getResponseBody(), bytes)) {
+            long version = statsManager.getDataVersion();
+            writeEvent(os, "hello", version, "{\"data_version\":" + version + "}");
+            while (!subscription.isClosed()) {
+                StatsStream.Change change = subscription.poll(heartbeatMillis);
+                long dropped = subscription.takeDropped();
+                if (dropped > 0) {
+                    version = statsManager.getDataVersion();
+                    writeEvent(os, "resync", version, "{\"dropped\":" + dropped + ",\"data_version\":" + version + "}");
+                }
+                if (change != null) {
+                    String data = changeJson(change, subscription.fields(), columns);
+                    if (data != null) {
+                        writeEvent(os, "stats", change.dataVersion(), data);
+                    }
+                } else if (dropped == 0) {
+                    // Комментарий SSE: держит соединение через прокси и выявляет отключившихся клиентов
+                    os.write(": keepalive\n\n".getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                }
+            }
+        } catch (IOException e) {
+            logger.fine("Клиент /moss/stream отключился: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ex.close();
+        }
+    }
+
+    private static void writeEvent(OutputStream os, String event, long id, String data) throws IOException {
+        os.write(("event: " + event + "\nid: " + id + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        os.flush();
+    }
+
+    // null — если после фильтра ключей не осталось изменений
+    private String changeJson(StatsStream.Change change, StatProjection fields, StatColumns columns) {
+        JsonObject o = new JsonObject();
+        o.addProperty("uuid", change.uuid().toString());
+        o.addProperty("name", statsManager.getPlayerName(change.uuid()));
+        if (change.removed()) {
+            o.addProperty("removed", true);
+            return gson.toJson(o);
+        }
+
+        JsonObject stats = new JsonObject();
+        int[] changed = change.columns();
+        for (int i = 0; i < changed.length; i++) {
+            String section = columns.section(changed[i]);
+            String key = columns.key(changed[i]);
+            if (fields != null && !fields.includes(section, key)) {
+                continue;
+            }
+            JsonObject values = stats.getAsJsonObject(section);
+            if (values == null) {
+                values = new JsonObject();
+                stats.add(section, values);
+            }
+            values.addProperty(key, change.values()[i]);
+        }
+        if (stats.size() == 0) {
+            return null;
+        }
+        o.add("stats", stats);
+        return gson.toJson(o);
+    }
+
+    // /moss/history/<uuid>/<stat_key>?from=&to=
+    private void handleHistory(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+        if (!statsManager.isHistoryEnabled()) {
+            send(ex, 404, "History is disabled", "text/plain");
+            return;
+        }
+
+        String[] parts = ex.getRequestURI().getPath().split("/");
+        String statKey = statKeyFromPath(ex, 4);
+        if (statKey == null) {
+            send(ex, 400, "Usage: /moss/history/<uuid>/<stat_key>?from=&to=", "text/plain");
+            return;
+        }
+
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(parts[3]);
+        } catch (IllegalArgumentException e) {
+            send(ex, 400, "Invalid UUID", "text/plain");
+            return;
+        }
+
+        if (!isValidStatKey(statKey)) {
+            send(ex, 400, "Invalid stat key", "text/plain");
+            return;
+        }
+
+        long from;
+        long to;
+        try {
+            String fromParam = queryParam(ex, "from");
+            String toParam = queryParam(ex, "to");
+            from = fromParam != null ? Long.parseLong(fromParam.trim()) : 0L;
+            to = toParam != null ? Long.parseLong(toParam.trim()) : Long.MAX_VALUE;
+        } catch (NumberFormatException e) {
+            send(ex, 400, "Invalid from/to (epoch millis)", "text/plain");
+            return;
+        }
+        if (from > to) {
+            send(ex, 400, "from must not be after to", "text/plain");
+            return;
+        }
+
+        JsonObject out = statsManager.getHistory(uuid, statKey, from, to, settings.maxHistoryPoints());
+        send(ex, 200, gson.toJson(out), "application/json; charset=UTF-8");
+    }
+
+    // /moss/metrics (путь из web.metrics.path)
+    private void handleMetrics(HttpExchange ex) throws IOException {
+        if (!ex.getRequestMethod().equalsIgnoreCase("GET")) {
+            send(ex, 405, "Method Not Allowed", "text/plain");
+            return;
+        }
+        send(ex, 200, metrics.scrape(), "text/plain; version=0.0.4; charset=utf-8");
+    }
+
+    /**
+     * Отправляет JSON-ответ через кэш версий: тело строится только если для текущей
+     * версии данных его ещё нет, а совпавший If-None-Match получает 304 без сериализации.
+     * Сжатие выбирается по Accept-Encoding и кэшируется вместе с телом.
+     */
+    private void sendCached(HttpExchange exchange, Supplier<String> body) throws IOException {
+        sendCached(exchange, null, body);
+    }
+
+    /**
+     * То же, но тело может оказаться null (например, игрока нет в индексе) — тогда ответ
+     * 404 с текстом {@code notFound}, который не кэшируется. Все данные ответа должны
+     * читаться внутри {@code body}: версия для ETag фиксируется до его вызова.
+     */
+    private void sendCached(HttpExchange exchange, String notFound, Supplier<String> body) throws IOException {
+        long version = statsManager.getDataVersion();
+        String query = exchange.getRequestURI().getRawQuery();
+        String key = exchange.getRequestURI().getPath() + (query == null ? "" : "?" + query);
+        String etag = ResponseCache.etag(key, version);
+
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+
+        String matched = matchEtag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag);
+        if (matched != null) {
+            exchange.getResponseHeaders().set("ETag", matched);
+            applyCommonHeaders(exchange);
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        ResponseCache.Entry entry = responseCache.get(key, version);
+        if (entry == null) {
+            String json = body.get();
+            if (json == null) {
+                send(exchange, 404, notFound, "text/plain");
+                return;
+            }
+            entry = new ResponseCache.Entry(version, etag, json.getBytes(StandardCharsets.UTF_8), JSON);
+            responseCache.put(key, entry);
+        }
+
+        ResponseCache.Encoding encoding = ResponseCache.Encoding.IDENTITY;
+        if (settings.compressionEnabled() && entry.size() >= settings.compressionMinBytes()) {
+            encoding = ResponseCache.Encoding.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        }
+        if (encoding.token() != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.token());
+        }
+        exchange.getResponseHeaders().set("ETag", encoding.etag(entry.etag()));
+        sendBytes(exchange, 200, entry.body(encoding), entry.contentType());
+    }
+
+    /**
+     * Пишет JSON прямо в тело ответа (chunked), не собирая его целиком в памяти.
+     * ETag/304 и сжатие работают так же, как в {@link #sendCached}, но байты не кэшируются.
+     */
+    private void sendStreamed(HttpExchange exchange, StreamBody body) throws IOException {
+        long version = statsManager.getDataVersion();
+        String query = exchange.getRequestURI().getRawQuery();
+        String etag = ResponseCache.etag(exchange.getRequestURI().getPath() + (query == null ? "" : "?" + query), version);
+
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        applyCommonHeaders(exchange);
+
+        String matched = matchEtag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag);
+        if (matched != null) {
+            exchange.getResponseHeaders().set("ETag", matched);
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        ResponseCache.Encoding encoding = settings.compressionEnabled()
+                ? ResponseCache.Encoding.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"))
+                : ResponseCache.Encoding.IDENTITY;
+        if (encoding.token() != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.token());
+        }
+        exchange.getResponseHeaders().set("ETag", encoding.etag(etag));
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream os = new CountingOutputStream(exchange.getResponseBody(), responseBytes(exchange));
+        if (encoding == ResponseCache.Encoding.GZIP) {
+            os = new GZIPOutputStream(os, 8192);
+        } else if (encoding == ResponseCache.Encoding.DEFLATE) {
+            os = new DeflaterOutputStream(os);
+        }
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 8192))) {
+            body.write(writer);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StreamBody {
+        void write(JsonWriter out) throws IOException;
+    }
+
+    /**
+     * Считает байты тела, ушедшие клиенту (после сжатия).
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final MetricsRegistry.Counter counter;
+
+        CountingOutputStream(OutputStream out, MetricsRegistry.Counter counter) {
+            super(out);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            counter.inc();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            counter.add(len);
+        }
+    }
+
+    private MetricsRegistry.Counter responseBytes(HttpExchange exchange) {
+        return metrics.counter("moss_http_response_bytes_total", "Response body bytes sent",
+                "endpoint", exchange.getHttpContext().getPath());
+    }
+
+    /**
+     * Ищет в If-None-Match ETag текущей версии (в любой кодировке).
+     * @return совпавший ETag или null
+     */
+    private String matchEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*")) {
+                return etag;
+            }
+            for (ResponseCache.Encoding encoding : ResponseCache.Encoding.values()) {
+                if (trimmed.equals(encoding.etag(etag))) {
+                    return trimmed;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void send(HttpExchange exchange, int code, String body, String contentType) throws IOException {
+        sendBytes(exchange, code, body.getBytes(StandardCharsets.UTF_8), contentType);
+    }
+
+    private void sendBytes(HttpExchange exchange, int code, byte[] bytes, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        applyCommonHeaders(exchange);
+        exchange.sendResponseHeaders(code, bytes.length);
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+        responseBytes(exchange).add(bytes.length);
+    }
+
+    private void applyCommonHeaders(HttpExchange exchange) {
+        // Пока идёт предзагрузка, данные неполные — клиенты могут отложить запрос
+        exchange.getResponseHeaders().set("X-Moss-State", statsManager.isWarming() ? "warming" : "ready");
+        if (settings.corsEnabled()) {
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", settings.corsAllowOrigin());
+            exchange.getResponseHeaders().set("Access-Control-Expose-Headers",
+                    "ETag, X-Moss-State, X-Next-Cursor, Link, X-Stat-Key, X-Stat-Alternatives");
+        }
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private int resolveLimit(HttpExchange exchange, int defaultLimit) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null || query.isBlank()) {
+            return defaultLimit;
+        }
+
+        for (String part : query.split("&")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length == 2 && kv[0].equalsIgnoreCase("limit")) {
+                try {
+                    int value = Integer.parseInt(kv[1]);
+                    if (value <= 0) {
+                        return defaultLimit;
+                    }
+                    if (defaultLimit > 0) {
+                        return Math.min(value, defaultLimit);
+                    }
+                    return value;
+                } catch (NumberFormatException ignored) {
+                    return defaultLimit;
+                }
+            }
+        }
+        return defaultLimit;
+    }
+
+    private String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+
+        for (String part : query.split("&")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length == 2 && kv[0].equalsIgnoreCase(name)) {
+                return URLDecoder.decode(kv[1], StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private boolean isValidStatKey(String statKey) {
+        if (statKey == null || statKey.isBlank() || statKey.length() > 128) {
+            return false;
+        }
+        return statKey.matches("[a-z0-9_:\\-.]+(/[a-z0-9_:\\-.]+)?");
+    }
+
+    /**
+     * Ключ статистики из пути начиная с сегмента {@code index}: {@code <key>} или
+     * {@code <section>/<key>} (слэш можно передать и как %2F). Приводится к каноническому виду.
+     */
+    private String statKeyFromPath(HttpExchange exchange, int index) {
+        return statKeyFromPath(exchange, index, 0);
+    }
+
+    /**
+     * То же, но последние {@code trailing} сегментов пути ключу не принадлежат.
+     */
+    private String statKeyFromPath(HttpExchange exchange, int index, int trailing) {
+        String[] parts = exchange.getRequestURI().getRawPath().split("/");
+        int end = parts.length - trailing;
+        if (end <= index) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = index; i < end; i++) {
+            if (i > index) {
+                key.append('/');
+            }
+            key.append(URLDecoder.decode(parts[i], StandardCharsets.UTF_8));
+        }
+        return StatColumns.canonicalKey(key.toString());
+    }
+
+    /**
+     * Заголовки разрешения ключа: X-Stat-Key — фактический section/key,
+     * X-Stat-Alternatives — другие разделы, где встречается неоднозначный ключ без раздела.
+     */
+    private void describeStatKey(HttpExchange exchange, String statKey) {
+        List<String> resolved = statsManager.resolveStatKey(statKey);
+        if (resolved.isEmpty()) {
+            return;
+        }
+        exchange.getResponseHeaders().set("X-Stat-Key", resolved.get(0));
+        if (resolved.size() > 1) {
+            exchange.getResponseHeaders().set("X-Stat-Alternatives", String.join(",", resolved.subList(1, resolved.size())));
+        }
+    }
+
+    private boolean isValidPlayerName(String name) {
+        if (name == null || name.isBlank() || name.length() > 16) {
+            return false;
+        }
+        return name.matches("[A-Za-z0-9_]+");
+    }
+
+    public record Settings(
+            InetAddress bindAddress,
+            int maxResponsePlayers,
+            int maxTopResults,
+            int maxSearchResults,
+            int maxBatchPlayers,
+            boolean corsEnabled,
+            String corsAllowOrigin,
+            int responseCacheEntries,
+            boolean compressionEnabled,
+            int compressionMinBytes,
+            ExecutorMode executorMode,
+            int executorThreads,
+            int maxConcurrent,
+            int maxConcurrentExpensive,
+            int maxQueued,
+            long queueTimeoutMillis,
+            int retryAfterSeconds,
+            int maxHistoryPoints,
+            int maxHistogramBuckets,
+            int streamHeartbeatSeconds,
+            boolean metricsEnabled,
+            String metricsPath
+    ) {
+    }
+
+    public enum ExecutorMode {
+        /** Виртуальный поток на каждый запрос (по умолчанию). */
+        VIRTUAL,
+        /** Фиксированный пул платформенных потоков. */
+        FIXED
+    }
+}